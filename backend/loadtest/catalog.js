@@ -0,0 +1,85 @@
+// Load test for comparing the blocking and reactive builds (https://k6.io).
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e RATE=2000 loadtest/catalog.js
+//
+// Runs a fixed arrival rate, so a saturated server shows up as latency and
+// dropped iterations instead of a lower request rate. Compare
+// http_reqs (throughput) and the p(99) of http_req_duration per build.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = Number(__ENV.RATE || 1000);
+const DURATION = __ENV.DURATION || '2m';
+
+export const options = {
+    scenarios: {
+        reads: {
+            executor: 'constant-arrival-rate',
+            exec: 'reads',
+            rate: Math.round(RATE * 0.9),
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+        movements: {
+            executor: 'constant-arrival-rate',
+            exec: 'movements',
+            rate: Math.max(1, Math.round(RATE * 0.1)),
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 50,
+            maxVUs: 500,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export function setup() {
+    const materials = [];
+    for (let i = 0; i < 50; i++) {
+        const res = http.post(`${BASE_URL}/raw-materials`,
+            JSON.stringify({ name: `Load material ${i}`, stockQuantity: 1000000 }), JSON_HEADERS);
+        materials.push(res.json('id'));
+    }
+    const products = [];
+    for (let i = 0; i < 50; i++) {
+        const res = http.post(`${BASE_URL}/products`,
+            JSON.stringify({ name: `Load product ${i}`, value: 10 + i }), JSON_HEADERS);
+        const productId = res.json('id');
+        products.push(productId);
+        http.post(`${BASE_URL}/products/${productId}/materials`,
+            JSON.stringify({ rawMaterialId: materials[i], requiredQuantity: 2 }), JSON_HEADERS);
+    }
+    return { materials, products };
+}
+
+function pick(ids) {
+    return ids[Math.floor(Math.random() * ids.length)];
+}
+
+export function reads(data) {
+    const roll = Math.random();
+    let res;
+    if (roll < 0.4) {
+        res = http.get(`${BASE_URL}/products/${pick(data.products)}`, { tags: { name: 'GET /products/{id}' } });
+    } else if (roll < 0.7) {
+        res = http.get(`${BASE_URL}/raw-materials/${pick(data.materials)}/stock`, { tags: { name: 'GET /raw-materials/{id}/stock' } });
+    } else if (roll < 0.9) {
+        res = http.get(`${BASE_URL}/products/${pick(data.products)}/materials`, { tags: { name: 'GET /products/{id}/materials' } });
+    } else {
+        res = http.get(`${BASE_URL}/products`, { tags: { name: 'GET /products' } });
+    }
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
+
+export function movements(data) {
+    const id = pick(data.materials);
+    const res = http.post(`${BASE_URL}/raw-materials/${id}/stock/adjust`,
+        JSON.stringify({ delta: Math.random() < 0.5 ? 1 : -1 }),
+        Object.assign({ tags: { name: 'POST /raw-materials/{id}/stock/adjust' } }, JSON_HEADERS));
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,58 @@
+package org.autoflex.benchmarks;
+
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.PlanningModel;
+import org.autoflex.planning.PlanningProduct;
+
+import java.util.*;
+
+/**
+ * The greedy planner as it was before {@link org.autoflex.planning.CompactPlanningModel}:
+ * boxed stock in a {@code HashMap} keyed by material id and BOM lines as
+ * objects. Kept only as the baseline for {@link PlanningModelBenchmark}.
+ */
+final class MapBasedGreedyPlanner {
+
+    Map<String, Integer> plan(PlanningModel model) {
+        Map<String, Integer> availableStock = new HashMap<>(model.stock());
+
+        List<PlanningProduct> products = model.products()
+                .stream()
+                .sorted(Comparator.comparingInt(PlanningProduct::value).reversed())
+                .toList();
+
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+
+        for (PlanningProduct product : products) {
+            List<BomLine> bom = model.bomOf(product.id());
+
+            if (bom.isEmpty()) {
+                continue;
+            }
+
+            int quantity = computeMaxUnits(bom, availableStock);
+
+            if (quantity <= 0) {
+                continue;
+            }
+
+            for (BomLine item : bom) {
+                availableStock.merge(item.rawMaterialId(), -(quantity * item.requiredQuantity()), (a, b) -> a + b);
+            }
+
+            quantities.put(product.id(), quantity);
+        }
+
+        return quantities;
+    }
+
+    private int computeMaxUnits(List<BomLine> bom, Map<String, Integer> availableStock) {
+        int max = Integer.MAX_VALUE;
+        for (BomLine item : bom) {
+            int inStock = availableStock.getOrDefault(item.rawMaterialId(), 0);
+            int required = item.requiredQuantity();
+            max = Math.min(max, inStock / required);
+        }
+        return max == Integer.MAX_VALUE ? 0 : max;
+    }
+}
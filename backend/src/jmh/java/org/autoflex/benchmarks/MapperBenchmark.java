@@ -0,0 +1,81 @@
+package org.autoflex.benchmarks;
+
+import org.autoflex.dto.ProductRequestDto;
+import org.autoflex.dto.ProductResponseDto;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.dto.RawMaterialResponseDto;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.mapper.ProductMapper;
+import org.autoflex.mapper.RawMaterialMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Entity/DTO mapping of a full listing, as done by the list endpoints. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"100", "10000"})
+    int rows;
+
+    private final ProductMapper productMapper = new ProductMapper();
+    private final RawMaterialMapper rawMaterialMapper = new RawMaterialMapper();
+
+    private List<ProductEntity> productEntities;
+    private List<RawMaterialEntity> rawMaterialEntities;
+    private List<ProductRequestDto> productRequests;
+    private List<RawMaterialRequestDto> rawMaterialRequests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productEntities = new ArrayList<>(rows);
+        rawMaterialEntities = new ArrayList<>(rows);
+        productRequests = new ArrayList<>(rows);
+        rawMaterialRequests = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            productEntities.add(new ProductEntity(SyntheticCatalog.productId(i), "Product " + i, i));
+
+            RawMaterialEntity material = new RawMaterialEntity();
+            material.setId(SyntheticCatalog.materialId(i));
+            material.setName("Material " + i);
+            material.setStockQuantity(i);
+            rawMaterialEntities.add(material);
+
+            productRequests.add(new ProductRequestDto("Product " + i, i));
+            rawMaterialRequests.add(new RawMaterialRequestDto("Material " + i, i));
+        }
+    }
+
+    @Benchmark
+    public List<ProductResponseDto> productToResponse() {
+        return productEntities.stream().map(productMapper::toResponse).toList();
+    }
+
+    @Benchmark
+    public List<RawMaterialResponseDto> rawMaterialToResponse() {
+        return rawMaterialEntities.stream().map(rawMaterialMapper::toResponse).toList();
+    }
+
+    @Benchmark
+    public void productToEntity(Blackhole blackhole) {
+        for (ProductRequestDto dto : productRequests) {
+            blackhole.consume(productMapper.toEntity(dto));
+        }
+    }
+
+    @Benchmark
+    public void rawMaterialToEntity(Blackhole blackhole) {
+        for (RawMaterialRequestDto dto : rawMaterialRequests) {
+            blackhole.consume(rawMaterialMapper.toEntity(dto));
+        }
+    }
+}
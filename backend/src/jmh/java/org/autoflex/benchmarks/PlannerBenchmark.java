@@ -0,0 +1,64 @@
+package org.autoflex.benchmarks;
+
+import org.autoflex.planning.CompactPlanningModel;
+import org.autoflex.planning.GreedyPlanner;
+import org.autoflex.planning.OptimalPlanner;
+import org.autoflex.planning.OptimalPlannerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning strategies over a synthetic catalog. {@code optimal} is bounded
+ * by its time budget, so its score mostly tracks how fast it proves (or
+ * fails to prove) optimality on small catalogs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int products;
+
+    @Param({"200"})
+    int materials;
+
+    @Param({"3", "10"})
+    int bomDensity;
+
+    @Param({"50ms"})
+    String optimalBudget;
+
+    private CompactPlanningModel model;
+    private GreedyPlanner greedy;
+    private OptimalPlanner optimal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = CompactPlanningModel.of(SyntheticCatalog.planningModel(products, materials, bomDensity));
+        greedy = new GreedyPlanner();
+        optimal = OptimalPlannerFactory.create(greedy, parseDuration(optimalBudget));
+    }
+
+    @Benchmark
+    public int[] greedy() {
+        return greedy.plan(model);
+    }
+
+    @Benchmark
+    public int[] optimal() {
+        return optimal.plan(model);
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        return Duration.parse(value);
+    }
+}
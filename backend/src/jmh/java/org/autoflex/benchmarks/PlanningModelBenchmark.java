@@ -0,0 +1,59 @@
+package org.autoflex.benchmarks;
+
+import org.autoflex.planning.CompactPlanningModel;
+import org.autoflex.planning.GreedyPlanner;
+import org.autoflex.planning.PlanningModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Greedy planning on the map-based model versus the compact array model.
+ * Run with {@code -prof gc} to compare allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanningModelBenchmark {
+
+    @Param({"5000", "50000"})
+    int products;
+
+    @Param({"5000"})
+    int materials;
+
+    @Param({"5"})
+    int bomDensity;
+
+    private PlanningModel model;
+    private CompactPlanningModel compactModel;
+    private final MapBasedGreedyPlanner mapBased = new MapBasedGreedyPlanner();
+    private final GreedyPlanner greedy = new GreedyPlanner();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = SyntheticCatalog.planningModel(products, materials, bomDensity);
+        compactModel = CompactPlanningModel.of(model);
+    }
+
+    @Benchmark
+    public Map<String, Integer> mapBased() {
+        return mapBased.plan(model);
+    }
+
+    /** Planning only, on a model built once per catalog version as the service does. */
+    @Benchmark
+    public int[] compact() {
+        return greedy.plan(compactModel);
+    }
+
+    /** One-off cost of building the compact model from the map-based one. */
+    @Benchmark
+    public CompactPlanningModel compactBuild() {
+        return CompactPlanningModel.of(model);
+    }
+}
@@ -0,0 +1,36 @@
+package org.autoflex.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.autoflex.dto.ProductionResultDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** JSON encoding of the production-suggestion response body. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int suggestions;
+
+    private ObjectWriter writer;
+    private ProductionResultDto result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(ProductionResultDto.class);
+        result = SyntheticCatalog.productionResult(suggestions);
+    }
+
+    @Benchmark
+    public byte[] productionResult() throws JsonProcessingException {
+        return writer.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,75 @@
+package org.autoflex.benchmarks;
+
+import org.autoflex.dto.ProductionResultDto;
+import org.autoflex.dto.ProductionSuggestionDto;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.PlanningModel;
+import org.autoflex.planning.PlanningProduct;
+
+import java.util.*;
+
+/**
+ * Deterministic random catalogs for the benchmarks. The same arguments
+ * always yield the same catalog, so results are comparable across runs.
+ */
+final class SyntheticCatalog {
+
+    static final long SEED = 42L;
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * @param products   number of products
+     * @param materials  number of raw materials
+     * @param bomDensity BOM lines per product, capped at {@code materials}
+     */
+    static PlanningModel planningModel(int products, int materials, int bomDensity) {
+        Random random = new Random(SEED);
+
+        Map<String, Integer> stock = new HashMap<>();
+        for (int m = 0; m < materials; m++) {
+            stock.put(materialId(m), 100 + random.nextInt(10_000));
+        }
+
+        int linesPerProduct = Math.min(bomDensity, materials);
+        List<PlanningProduct> productList = new ArrayList<>(products);
+        Map<String, List<BomLine>> bomByProduct = new HashMap<>();
+        for (int p = 0; p < products; p++) {
+            String id = productId(p);
+            productList.add(new PlanningProduct(id, "Product " + p, 1 + random.nextInt(1_000)));
+
+            Set<Integer> picked = new HashSet<>();
+            List<BomLine> bom = new ArrayList<>(linesPerProduct);
+            while (bom.size() < linesPerProduct) {
+                int m = random.nextInt(materials);
+                if (picked.add(m)) {
+                    bom.add(new BomLine(id, materialId(m), 1 + random.nextInt(20)));
+                }
+            }
+            bomByProduct.put(id, bom);
+        }
+        return new PlanningModel(productList, stock, bomByProduct);
+    }
+
+    static ProductionResultDto productionResult(int suggestions) {
+        Random random = new Random(SEED);
+        List<ProductionSuggestionDto> list = new ArrayList<>(suggestions);
+        int grandTotal = 0;
+        for (int p = 0; p < suggestions; p++) {
+            int value = 1 + random.nextInt(1_000);
+            int quantity = 1 + random.nextInt(50);
+            list.add(new ProductionSuggestionDto(productId(p), "Product " + p, value, quantity, value * quantity));
+            grandTotal += value * quantity;
+        }
+        return new ProductionResultDto(list, grandTotal);
+    }
+
+    static String productId(int index) {
+        return new UUID(SEED, index).toString();
+    }
+
+    static String materialId(int index) {
+        return new UUID(~SEED, index).toString();
+    }
+}
@@ -0,0 +1,86 @@
+package org.autoflex.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Concurrent capacity of the blocking endpoints' execution models: a burst
+ * of {@code requests} tasks, each blocking for {@code latencyMillis} the way
+ * a database round trip does, on a fixed platform worker pool versus one
+ * virtual thread per task. The {@code pinned} variant blocks inside a
+ * monitor, which holds the carrier thread and loses the virtual threads'
+ * advantage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadModelBenchmark {
+
+    /** Quarkus' default worker pool ceiling. */
+    private static final int PLATFORM_WORKERS = 200;
+
+    @Param({"100", "1000", "5000"})
+    int requests;
+
+    @Param({"5"})
+    long latencyMillis;
+
+    private ExecutorService platform;
+    private ExecutorService virtual;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        platform = Executors.newFixedThreadPool(PLATFORM_WORKERS);
+        virtual = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        platform.shutdownNow();
+        virtual.shutdownNow();
+    }
+
+    @Benchmark
+    public int platformThreads() throws Exception {
+        return burst(platform, this::block);
+    }
+
+    @Benchmark
+    public int virtualThreads() throws Exception {
+        return burst(virtual, this::block);
+    }
+
+    @Benchmark
+    public int virtualThreadsPinned() throws Exception {
+        return burst(virtual, () -> {
+            Object monitor = new Object();
+            synchronized (monitor) {
+                return block();
+            }
+        });
+    }
+
+    private int burst(ExecutorService executor, Callable<Integer> task) throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(executor.submit(task));
+        }
+        int done = 0;
+        for (Future<Integer> future : futures) {
+            done += future.get();
+        }
+        return done;
+    }
+
+    private Integer block() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        return 1;
+    }
+}
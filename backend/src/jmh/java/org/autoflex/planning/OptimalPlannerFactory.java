@@ -0,0 +1,17 @@
+package org.autoflex.planning;
+
+import java.time.Duration;
+
+/** Wires an {@link OptimalPlanner} outside CDI for the benchmarks. */
+public final class OptimalPlannerFactory {
+
+    private OptimalPlannerFactory() {
+    }
+
+    public static OptimalPlanner create(GreedyPlanner greedyPlanner, Duration timeBudget) {
+        OptimalPlanner planner = new OptimalPlanner();
+        planner.greedyPlanner = greedyPlanner;
+        planner.timeBudget = timeBudget;
+        return planner;
+    }
+}
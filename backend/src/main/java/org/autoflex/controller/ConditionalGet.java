@@ -0,0 +1,21 @@
+package org.autoflex.controller;
+
+import org.autoflex.events.CatalogTable;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET whose response depends only on the given tables (and the
+ * request URI). {@link ConditionalGetFilter} tags the response with an
+ * {@code ETag} built from their change versions and answers a matching
+ * {@code If-None-Match} with 304 before the method runs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    CatalogTable[] value();
+}
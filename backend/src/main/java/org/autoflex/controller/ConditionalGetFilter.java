@@ -0,0 +1,75 @@
+package org.autoflex.controller;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.events.CatalogVersions;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weak ETags for {@link ConditionalGet} methods. The tag comes from
+ * {@link CatalogVersions}, so a 304 is decided from memory without
+ * touching the database.
+ *
+ * <p>Those versions only see this instance's writes, so conditional GETs
+ * are for single-instance deployments: behind a load balancer another
+ * instance's write would be answered with a stale 304. Set
+ * {@code autoflex.conditional-get.enabled=false} when running more than one.
+ */
+public class ConditionalGetFilter {
+
+    private static final String ETAG_PROPERTY = ConditionalGetFilter.class.getName() + ".etag";
+
+    /** Resource method → its annotation, or empty when it has none. */
+    private static final Map<Method, Optional<ConditionalGet>> ANNOTATIONS = new ConcurrentHashMap<>();
+
+    @Inject
+    CatalogVersions catalogVersions;
+
+    @ConfigProperty(name = "autoflex.conditional-get.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ServerRequestFilter
+    public Optional<Response> checkETag(ContainerRequestContext request, ResourceInfo resourceInfo) {
+        Method method = resourceInfo.getResourceMethod();
+        if (!enabled || method == null || !HttpMethod.GET.equals(request.getMethod())) {
+            return Optional.empty();
+        }
+        Optional<ConditionalGet> conditional = ANNOTATIONS.computeIfAbsent(method,
+                m -> Optional.ofNullable(m.getAnnotation(ConditionalGet.class)));
+        if (conditional.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Weak: the versions are per instance, not a digest of the body
+        EntityTag etag = new EntityTag(catalogVersions.tag(conditional.get().value()), true);
+        Response.ResponseBuilder notModified = request.getRequest().evaluatePreconditions(etag);
+        if (notModified != null) {
+            return Optional.of(notModified.tag(etag).header(HttpHeaders.CACHE_CONTROL, "no-cache").build());
+        }
+        request.setProperty(ETAG_PROPERTY, etag);
+        return Optional.empty();
+    }
+
+    @ServerResponseFilter
+    public void addETag(ContainerRequestContext request, ContainerResponseContext response) {
+        if (request.getProperty(ETAG_PROPERTY) instanceof EntityTag etag
+                && response.getStatus() == Response.Status.OK.getStatusCode()) {
+            response.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+            // Cache, but revalidate every time
+            response.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.autoflex.controller;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * A concurrent writer changed the row first: answer 409 so the client can
+ * re-read and retry instead of getting a 500.
+ */
+@Provider
+public class OptimisticLockExceptionMapper implements ExceptionMapper<OptimisticLockException> {
+
+    @Override
+    public Response toResponse(OptimisticLockException exception) {
+        return Response.status(Response.Status.CONFLICT)
+                .entity("The resource was modified concurrently, please retry")
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.ProductComponentRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.services.ProductComponentServices;
+
+/** Sub-assemblies of a product. */
+@Path("/products/{productId}/components")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "blocking", enableIfMissing = true)
+public class ProductComponentController {
+
+    @Inject
+    ProductComponentServices productComponentServices;
+
+    @POST
+    public Response addComponent(@PathParam("productId") String productId,
+            @Valid ProductComponentRequestDto requestDto) {
+        var response = productComponentServices.addComponent(productId, requestDto);
+        return Response.status(Response.Status.CREATED).entity(response).build();
+    }
+
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.PRODUCT_COMPONENTS})
+    public Response listByProduct(@PathParam("productId") String productId) {
+        var response = productComponentServices.listByProduct(productId);
+        return Response.ok(response).build();
+    }
+
+    @DELETE
+    @Path("/{componentId}")
+    public Response removeComponent(@PathParam("productId") String productId,
+            @PathParam("componentId") String componentId) {
+        productComponentServices.removeComponent(productId, componentId);
+        return Response.noContent().build();
+    }
+}
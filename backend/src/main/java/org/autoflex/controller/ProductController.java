@@ -1,34 +1,102 @@
 package org.autoflex.controller;
 
+import io.quarkus.arc.properties.IfBuildProperty;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.autoflex.dto.ProductRequestDto;
+import org.autoflex.dto.ProductionOrderRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.services.BulkImportServices;
+import org.autoflex.services.ExportServices;
 import org.autoflex.services.ProductServices;
+import org.autoflex.services.StockMovementServices;
+
+import java.io.InputStream;
+import java.util.List;
 
 @Path("/products")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "blocking", enableIfMissing = true)
 public class ProductController {
 
     @Inject
     ProductServices productServices;
 
+    @Inject
+    ExportServices exportServices;
+
+    @Inject
+    BulkImportServices bulkImportServices;
+
+    @Inject
+    StockMovementServices stockMovementServices;
+
     @POST
     public Response create(@Valid ProductRequestDto requestDto) {
         var response = productServices.create(requestDto);
         return Response.status(Response.Status.CREATED).entity(response).build();
     }
 
-    @GET
-    public Response findAll() {
-        var response = productServices.findAll();
+    /** Imports a JSON array of products; returns a per-row error report. */
+    @POST
+    @Path("/bulk")
+    public Response bulkImport(List<ProductRequestDto> rows) {
+        var response = bulkImportServices.importProducts(BulkImportServices.rows(rows));
         return Response.ok(response).build();
     }
 
+    /** Same as {@link #bulkImport(List)} for newline-delimited JSON, read as it streams in. */
+    @POST
+    @Path("/bulk")
+    @Consumes(ExportServices.NDJSON)
+    public Response bulkImportNdjson(InputStream body) {
+        var response = bulkImportServices.importProducts(bulkImportServices.ndjsonRows(body, ProductRequestDto.class));
+        return Response.ok(response).build();
+    }
+
+    /**
+     * Lists everything when called without parameters. With any of
+     * {@code cursor}, {@code limit}, {@code sort} ({@code id|name|maxUnits},
+     * prefix {@code -} for descending), {@code fields} or {@code minUnits}
+     * it returns one keyset page; the cursor for the next page is in the
+     * {@code X-Next-Cursor} header. {@code maxUnits} is only in the rows
+     * when listed in {@code fields}.
+     */
     @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.PRODUCT_AVAILABILITY})
+    public Response findAll(@QueryParam("cursor") String cursor,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort,
+            @QueryParam("fields") String fields,
+            @QueryParam("minUnits") @Min(value = 0, message = "minUnits cannot be negative") Integer minUnits) {
+        if (cursor == null && limit == null && sort == null && fields == null && minUnits == null) {
+            var response = productServices.findAll();
+            return Response.ok(response).build();
+        }
+        var page = productServices.findPage(cursor, limit, sort, fields, minUnits);
+        return Response.ok(page.items())
+                .header("X-Next-Cursor", page.nextCursor())
+                .build();
+    }
+
+    /** Streams every row as newline-delimited JSON, for bulk syncs. */
+    @GET
+    @Path("/export")
+    @Produces(ExportServices.NDJSON)
+    public Response export() {
+        StreamingOutput stream = exportServices::exportProducts;
+        return Response.ok(stream).build();
+    }
+
+    @GET
+    @ConditionalGet(CatalogTable.PRODUCTS)
     @Path("/{id}")
     public Response findById(@PathParam("id") String id) {
         var response = productServices.findById(id);
@@ -48,4 +116,23 @@ public class ProductController {
         productServices.delete(id);
         return Response.noContent().build();
     }
-}
\ No newline at end of file
+
+    /** Deducts the product's BOM for {@code quantity} units from stock, atomically. */
+    @POST
+    @Path("/{id}/produce")
+    public Response produce(@PathParam("id") String id,
+            @QueryParam("quantity") @DefaultValue("1") @Min(value = 1, message = "Quantity must be at least 1")
+            @Max(value = ProductionOrderRequestDto.MAX_QUANTITY, message = "Quantity must be at most "
+                    + ProductionOrderRequestDto.MAX_QUANTITY) int quantity) {
+        var response = stockMovementServices.produce(id, quantity);
+        return Response.ok(response).build();
+    }
+
+    /** Runs several production orders in one transaction; any shortage rolls back all of them. */
+    @POST
+    @Path("/produce")
+    public Response produceAll(@Valid List<@Valid ProductionOrderRequestDto> orders) {
+        var response = stockMovementServices.produceAll(orders);
+        return Response.ok(response).build();
+    }
+}
@@ -1,21 +1,45 @@
 package org.autoflex.controller;
 
+import io.quarkus.arc.properties.IfBuildProperty;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.autoflex.dto.ProductMaterialBulkRowDto;
 import org.autoflex.dto.ProductMaterialRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.services.BomExplosionServices;
+import org.autoflex.services.BulkImportServices;
+import org.autoflex.services.ExportServices;
 import org.autoflex.services.ProductMaterialServices;
 
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
 @Path("/products/{productId}/materials")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "blocking", enableIfMissing = true)
 public class ProductMaterialController {
 
+    /** Path value standing for every product in the cross-product endpoints. */
+    public static final String ALL_PRODUCTS = "all";
+
     @Inject
     ProductMaterialServices productMaterialServices;
 
+    @Inject
+    BomExplosionServices bomExplosionServices;
+
+    @Inject
+    ExportServices exportServices;
+
+    @Inject
+    BulkImportServices bulkImportServices;
+
     @POST
     public Response addMaterial(@PathParam("productId") String productId,
             @Valid ProductMaterialRequestDto requestDto) {
@@ -23,12 +47,71 @@ public class ProductMaterialController {
         return Response.status(Response.Status.CREATED).entity(response).build();
     }
 
+    /**
+     * Imports a JSON array of BOM lines, inserting new links and updating
+     * existing ones. Under {@value #ALL_PRODUCTS} each row names its product;
+     * otherwise rows without a {@code productId} belong to the path product
+     * and rows naming another product are reported as errors.
+     */
+    @POST
+    @Path("/bulk")
+    public Response bulkImport(@PathParam("productId") String productId,
+            List<ProductMaterialBulkRowDto> rows) {
+        var response = bulkImportServices.importProductMaterials(
+                withProduct(productId, BulkImportServices.rows(rows)));
+        return Response.ok(response).build();
+    }
+
+    /** Same as {@link #bulkImport(String, List)} for newline-delimited JSON. */
+    @POST
+    @Path("/bulk")
+    @Consumes(ExportServices.NDJSON)
+    public Response bulkImportNdjson(@PathParam("productId") String productId, InputStream body) {
+        var response = bulkImportServices.importProductMaterials(
+                withProduct(productId, bulkImportServices.ndjsonRows(body, ProductMaterialBulkRowDto.class)));
+        return Response.ok(response).build();
+    }
+
+    /**
+     * The product's BOM lines. Under {@value #ALL_PRODUCTS}, the lines of
+     * every product, or of those listed in {@code ids} (comma-separated),
+     * in one query.
+     */
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS})
+    public Response listByProduct(@PathParam("productId") String productId, @QueryParam("ids") String ids) {
+        var response = ALL_PRODUCTS.equals(productId)
+                ? productMaterialServices.listByProducts(ProductMaterialServices.parseProductIds(ids))
+                : productMaterialServices.listByProduct(productId);
+        return Response.ok(response).build();
+    }
+
+    /**
+     * The BOM flattened to raw materials through every level of
+     * sub-assemblies, with the total quantity needed for one unit.
+     */
     @GET
-    public Response listByProduct(@PathParam("productId") String productId) {
-        var response = productMaterialServices.listByProduct(productId);
+    @Path("/exploded")
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    public Response explodedBom(@PathParam("productId") String productId) {
+        var response = bomExplosionServices.explodedBom(productId);
         return Response.ok(response).build();
     }
 
+    /**
+     * Streams BOM lines as newline-delimited JSON, for one product or for
+     * every product when {@code productId} is {@value #ALL_PRODUCTS}.
+     */
+    @GET
+    @Path("/export")
+    @Produces(ExportServices.NDJSON)
+    public Response export(@PathParam("productId") String productId) {
+        String filter = ALL_PRODUCTS.equals(productId) ? null : productId;
+        StreamingOutput stream = out -> exportServices.exportProductMaterials(filter, out);
+        return Response.ok(stream).build();
+    }
+
     @DELETE
     @Path("/{rawMaterialId}")
     public Response removeMaterial(@PathParam("productId") String productId,
@@ -36,4 +119,33 @@ public class ProductMaterialController {
         productMaterialServices.removeMaterial(productId, rawMaterialId);
         return Response.noContent().build();
     }
+
+    static Iterator<BulkImportServices.Row<ProductMaterialBulkRowDto>> withProduct(String productId,
+            Iterator<BulkImportServices.Row<ProductMaterialBulkRowDto>> rows) {
+        if (ALL_PRODUCTS.equals(productId)) {
+            return rows;
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public BulkImportServices.Row<ProductMaterialBulkRowDto> next() {
+                var row = rows.next();
+                var dto = row.value();
+                if (dto == null || productId.equals(dto.productId())) {
+                    return row;
+                }
+                if (dto.productId() != null) {
+                    return new BulkImportServices.Row<>(row.row(), null, "Row names product " + dto.productId()
+                            + " but is imported under product " + productId);
+                }
+                return new BulkImportServices.Row<>(row.row(),
+                        new ProductMaterialBulkRowDto(productId, dto.rawMaterialId(), dto.requiredQuantity()),
+                        null);
+            }
+        };
+    }
 }
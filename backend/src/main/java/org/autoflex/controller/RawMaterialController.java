@@ -1,38 +1,126 @@
 package org.autoflex.controller;
 
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.mutiny.Multi;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.autoflex.dto.CatalogUpdateDto;
 import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.dto.ScenarioRequestDto;
+import org.autoflex.dto.StockAdjustmentRequestDto;
+import org.autoflex.dto.StockMovementRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.planning.GreedyPlanner;
+import org.autoflex.services.BulkImportServices;
+import org.autoflex.services.CatalogStreamServices;
+import org.autoflex.services.ExportServices;
+import org.autoflex.services.ProductMaterialServices;
 import org.autoflex.services.ProductionServices;
 import org.autoflex.services.RawMaterialServices;
+import org.autoflex.services.StockLedgerServices;
+import org.autoflex.services.StockMovementServices;
+import org.autoflex.services.WhereUsedServices;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+import java.io.InputStream;
+import java.util.List;
 
 @Path("/raw-materials")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "blocking", enableIfMissing = true)
 public class RawMaterialController {
 
     @Inject
     RawMaterialServices rawMaterialServices;
 
+    @Inject
+    ExportServices exportServices;
+
+    @Inject
+    BulkImportServices bulkImportServices;
+
     @Inject
     ProductionServices productionServices;
 
+    @Inject
+    StockMovementServices stockMovementServices;
+
+    @Inject
+    StockLedgerServices stockLedgerServices;
+
+    @Inject
+    ProductMaterialServices productMaterialServices;
+
+    @Inject
+    WhereUsedServices whereUsedServices;
+
+    @Inject
+    CatalogStreamServices catalogStreamServices;
+
     @POST
     public Response create(@Valid RawMaterialRequestDto requestDto) {
         var response = rawMaterialServices.create(requestDto);
         return Response.status(Response.Status.CREATED).entity(response).build();
     }
 
-    @GET
-    public Response findAll() {
-        var response = rawMaterialServices.findAll();
+    /** Imports a JSON array of raw materials; returns a per-row error report. */
+    @POST
+    @Path("/bulk")
+    public Response bulkImport(List<RawMaterialRequestDto> rows) {
+        var response = bulkImportServices.importRawMaterials(BulkImportServices.rows(rows));
+        return Response.ok(response).build();
+    }
+
+    /** Same as {@link #bulkImport(List)} for newline-delimited JSON, read as it streams in. */
+    @POST
+    @Path("/bulk")
+    @Consumes(ExportServices.NDJSON)
+    public Response bulkImportNdjson(InputStream body) {
+        var response = bulkImportServices.importRawMaterials(bulkImportServices.ndjsonRows(body, RawMaterialRequestDto.class));
         return Response.ok(response).build();
     }
 
+    /**
+     * Lists everything when called without parameters. With any of
+     * {@code cursor}, {@code limit}, {@code sort} ({@code id|name}, prefix
+     * {@code -} for descending) or {@code fields} it returns one keyset page;
+     * the cursor for the next page is in the {@code X-Next-Cursor} header.
+     */
+    @GET
+    @ConditionalGet(CatalogTable.RAW_MATERIALS)
+    public Response findAll(@QueryParam("cursor") String cursor,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort,
+            @QueryParam("fields") String fields) {
+        if (cursor == null && limit == null && sort == null && fields == null) {
+            var response = rawMaterialServices.findAll();
+            return Response.ok(response).build();
+        }
+        var page = rawMaterialServices.findPage(cursor, limit, sort, fields);
+        return Response.ok(page.items())
+                .header("X-Next-Cursor", page.nextCursor())
+                .build();
+    }
+
+    /** Streams every row as newline-delimited JSON, for bulk syncs. */
     @GET
+    @Path("/export")
+    @Produces(ExportServices.NDJSON)
+    public Response export() {
+        StreamingOutput stream = exportServices::exportRawMaterials;
+        return Response.ok(stream).build();
+    }
+
+    @GET
+    @ConditionalGet(CatalogTable.RAW_MATERIALS)
     @Path("/{id}")
     public Response findById(@PathParam("id") String id) {
         var response = rawMaterialServices.findById(id);
@@ -54,10 +142,112 @@ public class RawMaterialController {
         return Response.noContent().build();
     }
 
+    /**
+     * Products whose BOM uses this raw material, with the quantity each needs.
+     * Answered from this instance's in-memory index, sub-assemblies included;
+     * {@code consistent=true} reads the direct lines in {@code product_materials}
+     * instead, to see writes made elsewhere.
+     */
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    @Path("/{id}/used-by")
+    public Response usedBy(@PathParam("id") String id, @QueryParam("consistent") boolean consistent) {
+        var response = consistent
+                ? productMaterialServices.listByRawMaterial(id)
+                : whereUsedServices.usedBy(id);
+        return Response.ok(response).build();
+    }
+
+    /** Revenue the products using this raw material could earn from current stock. */
     @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    @Path("/{id}/at-risk")
+    public Response atRisk(@PathParam("id") String id) {
+        var response = whereUsedServices.atRiskRevenue(id);
+        return Response.ok(response).build();
+    }
+
+    // Stock movements: atomic, safe under concurrent writers
+
+    /** Current stock position, or with {@code at} (ISO-8601 instant) the position at that moment. */
+    @GET
+    @ConditionalGet(CatalogTable.RAW_MATERIALS)
+    @Path("/{id}/stock")
+    public Response findStock(@PathParam("id") String id, @QueryParam("at") String at) {
+        var response = at == null
+                ? stockMovementServices.findStock(id)
+                : stockLedgerServices.stockAt(id, StockLedgerServices.parseInstant(at));
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/{id}/stock/reserve")
+    public Response reserve(@PathParam("id") String id, @Valid StockMovementRequestDto requestDto) {
+        var response = stockMovementServices.reserve(id, requestDto.quantity());
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/{id}/stock/release")
+    public Response release(@PathParam("id") String id, @Valid StockMovementRequestDto requestDto) {
+        var response = stockMovementServices.release(id, requestDto.quantity());
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/{id}/stock/consume")
+    public Response consume(@PathParam("id") String id, @Valid StockMovementRequestDto requestDto) {
+        var response = stockMovementServices.consume(id, requestDto.quantity());
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/{id}/stock/adjust")
+    public Response adjust(@PathParam("id") String id, @Valid StockAdjustmentRequestDto requestDto) {
+        var response = stockMovementServices.adjust(id, requestDto.delta());
+        return Response.ok(response).build();
+    }
+
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
     @Path("/production-suggestion")
-    public Response suggestProduction() {
-        var result = productionServices.suggestProduction();
-        return Response.ok(result).build();
+    public Response suggestProduction(@QueryParam("strategy") @DefaultValue(GreedyPlanner.NAME) String strategy,
+                                      @QueryParam("asOf") String asOf) {
+        var snapshot = asOf == null
+                ? productionServices.suggestProduction(strategy)
+                : productionServices.suggestProduction(strategy, StockLedgerServices.parseInstant(asOf));
+        return Response.ok(snapshot.result())
+                .header("X-Catalog-Version", snapshot.version())
+                .build();
+    }
+
+    /**
+     * Server-sent events with stock and suggestion changes, at most one
+     * message per debounce window. Start from a GET, then apply updates.
+     */
+    @GET
+    @Path("/stream")
+    @NonBlocking
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<CatalogUpdateDto> stream() {
+        return catalogStreamServices.updates();
+    }
+
+    /**
+     * Plans each what-if scenario (stock deltas, price overrides) against
+     * the same snapshot of the live catalog. Nothing is written.
+     */
+    @POST
+    @Path("/production-suggestion/scenarios")
+    public Response evaluateScenarios(@QueryParam("strategy") @DefaultValue(GreedyPlanner.NAME) String strategy,
+            @Valid @NotNull @Size(max = ProductionServices.MAX_SCENARIOS) List<@Valid ScenarioRequestDto> scenarios) {
+        var snapshot = productionServices.evaluateScenarios(strategy, scenarios);
+        return Response.ok(snapshot.results())
+                .header("X-Catalog-Version", snapshot.version())
+                .build();
     }
 }
@@ -0,0 +1,24 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.UnlessBuildProperty;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Fails startup when {@code autoflex.rest.stack} was set at build time to
+ * anything but {@code blocking}, {@code virtual} or {@code reactive}. Every
+ * controller is selected by that value, so a typo would otherwise start an
+ * application with none of the catalog routes.
+ */
+@ApplicationScoped
+@UnlessBuildProperty(name = "autoflex.rest.stack", stringValue = "blocking")
+@UnlessBuildProperty(name = "autoflex.rest.stack", stringValue = "virtual")
+@UnlessBuildProperty(name = "autoflex.rest.stack", stringValue = "reactive")
+public class UnknownRestStack {
+
+    void onStart(@Observes StartupEvent event) {
+        throw new IllegalStateException(
+                "Unknown autoflex.rest.stack; build with blocking (the default), virtual or reactive");
+    }
+}
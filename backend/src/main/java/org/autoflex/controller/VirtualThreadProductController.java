@@ -0,0 +1,17 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+/** {@link ProductController} with every blocking endpoint on a virtual thread. */
+@Path("/products")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "virtual")
+public class VirtualThreadProductController extends ProductController {
+}
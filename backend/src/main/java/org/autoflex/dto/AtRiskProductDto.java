@@ -0,0 +1,14 @@
+package org.autoflex.dto;
+
+/**
+ * A product that depends on a raw material, with what it could earn from
+ * the current stock if that material stays available.
+ */
+public record AtRiskProductDto(
+        String productId,
+        String productName,
+        Integer productValue,
+        Integer requiredQuantity,
+        Integer producibleUnits,
+        Long revenue) {
+}
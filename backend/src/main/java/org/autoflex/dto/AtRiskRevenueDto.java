@@ -0,0 +1,15 @@
+package org.autoflex.dto;
+
+import java.util.List;
+
+/**
+ * Revenue that depends on one raw material: the sum of what every product
+ * using it could earn from current stock, each product considered alone.
+ */
+public record AtRiskRevenueDto(
+        String rawMaterialId,
+        String rawMaterialName,
+        Integer availableStock,
+        Long revenueAtRisk,
+        List<AtRiskProductDto> products) {
+}
@@ -0,0 +1,10 @@
+package org.autoflex.dto;
+
+import java.util.List;
+
+public record BulkImportResultDto(
+        int received,
+        int imported,
+        List<BulkRowErrorDto> errors
+) {
+}
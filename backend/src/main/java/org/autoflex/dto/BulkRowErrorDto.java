@@ -0,0 +1,13 @@
+package org.autoflex.dto;
+
+/**
+ * A row rejected by a bulk import.
+ *
+ * @param row     1-based position of the row in the request
+ * @param message why it was rejected
+ */
+public record BulkRowErrorDto(
+        int row,
+        String message
+) {
+}
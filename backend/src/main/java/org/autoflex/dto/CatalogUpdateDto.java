@@ -0,0 +1,17 @@
+package org.autoflex.dto;
+
+import java.util.List;
+
+/**
+ * One message of the catalog stream: everything that changed during one
+ * debounce window.
+ *
+ * @param version    catalog version the message reflects, as in {@code X-Catalog-Version}
+ * @param stock      current stock of every raw material that moved in the window
+ * @param suggestion the greedy production suggestion, or {@code null} if it did not change
+ */
+public record CatalogUpdateDto(
+        long version,
+        List<StockLevelDto> stock,
+        ProductionResultDto suggestion) {
+}
@@ -0,0 +1,15 @@
+package org.autoflex.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param items      the rows of this page
+ * @param nextCursor opaque cursor for the following page, or {@code null} on the last page
+ */
+public record PageDto<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
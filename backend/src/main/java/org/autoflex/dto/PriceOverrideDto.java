@@ -0,0 +1,17 @@
+package org.autoflex.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/** Unit value a product is planned with in a scenario. */
+public record PriceOverrideDto(
+
+        @NotBlank(message = "The product id is required")
+        String productId,
+
+        @NotNull(message = "The value is required")
+        @Min(value = 0, message = "Value must be zero or positive")
+        Integer value
+) {
+}
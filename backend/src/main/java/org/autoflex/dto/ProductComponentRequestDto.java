@@ -0,0 +1,12 @@
+package org.autoflex.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record ProductComponentRequestDto(
+
+          @NotBlank(message = "The component id is required") String componentId,
+
+          @NotNull(message = "The required quantity is required") @Min(value = 1, message = "Required quantity must be at least 1") Integer requiredQuantity) {
+}
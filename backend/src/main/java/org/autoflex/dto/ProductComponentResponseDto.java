@@ -0,0 +1,9 @@
+package org.autoflex.dto;
+
+public record ProductComponentResponseDto(
+                String productId,
+                String productName,
+                String componentId,
+                String componentName,
+                Integer requiredQuantity) {
+}
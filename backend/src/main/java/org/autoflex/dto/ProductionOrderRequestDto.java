@@ -0,0 +1,22 @@
+package org.autoflex.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record ProductionOrderRequestDto(
+
+        @NotBlank(message = "The product id is required")
+        String productId,
+
+        @NotNull(message = "The quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        @Max(value = ProductionOrderRequestDto.MAX_QUANTITY, message = "Quantity must be at most "
+                + ProductionOrderRequestDto.MAX_QUANTITY)
+        Integer quantity
+) {
+
+    /** Upper bound on units per order, far below what a BOM line times it could overflow into. */
+    public static final int MAX_QUANTITY = 1_000_000;
+}
@@ -0,0 +1,13 @@
+package org.autoflex.dto;
+
+/**
+ * Outcome of producing a product.
+ *
+ * @param materialsConsumed number of distinct raw materials deducted from stock
+ */
+public record ProductionOrderResultDto(
+        String productId,
+        Integer quantity,
+        Integer materialsConsumed
+) {
+}
@@ -0,0 +1,21 @@
+package org.autoflex.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+/**
+ * A what-if scenario: overrides applied on top of the live catalog for one
+ * planning run. Nothing is written.
+ */
+public record ScenarioRequestDto(
+
+        @NotBlank(message = "The scenario name is required")
+        String name,
+
+        List<@Valid StockOverrideDto> stock,
+
+        List<@Valid PriceOverrideDto> prices
+) {
+}
@@ -0,0 +1,6 @@
+package org.autoflex.dto;
+
+public record ScenarioResultDto(
+        String name,
+        ProductionResultDto result) {
+}
@@ -0,0 +1,10 @@
+package org.autoflex.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record StockAdjustmentRequestDto(
+
+        @NotNull(message = "The delta is required")
+        Integer delta
+) {
+}
@@ -0,0 +1,14 @@
+package org.autoflex.dto;
+
+/**
+ * Stock position of a raw material after a movement.
+ *
+ * @param availableQuantity on hand minus reserved
+ */
+public record StockLevelDto(
+        String id,
+        Integer stockQuantity,
+        Integer reservedQuantity,
+        Integer availableQuantity
+) {
+}
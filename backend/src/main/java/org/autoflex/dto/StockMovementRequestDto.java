@@ -0,0 +1,12 @@
+package org.autoflex.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record StockMovementRequestDto(
+
+        @NotNull(message = "The quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        Integer quantity
+) {
+}
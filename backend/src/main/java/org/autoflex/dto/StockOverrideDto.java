@@ -0,0 +1,15 @@
+package org.autoflex.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/** Units added to (or, if negative, taken from) a raw material's available stock in a scenario. */
+public record StockOverrideDto(
+
+        @NotBlank(message = "The raw material id is required")
+        String rawMaterialId,
+
+        @NotNull(message = "The delta is required")
+        Integer delta
+) {
+}
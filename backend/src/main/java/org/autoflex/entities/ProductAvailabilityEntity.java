@@ -0,0 +1,41 @@
+package org.autoflex.entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Units of a product that available stock allows right now, over its
+ * exploded BOM. A materialized view on PostgreSQL and Oracle, refreshed by
+ * {@link org.autoflex.services.ProductAvailabilityServices}; never written
+ * through this entity there.
+ */
+@Entity
+@Table(name = "product_availability")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductAvailabilityEntity extends PanacheEntityBase {
+
+    /** Name shared by the view and its query space. */
+    public static final String TABLE = "product_availability";
+
+    @Id
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(name = "product_id", nullable = false, updatable = false)
+    private String productId;
+
+    @Column(name = "max_units", nullable = false)
+    private Integer maxUnits;
+}
@@ -0,0 +1,34 @@
+package org.autoflex.entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** A product used as a sub-assembly of another product. */
+@Entity
+@Table(name = "product_components")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductComponentEntity extends PanacheEntityBase {
+
+    @EmbeddedId
+    private ProductComponentId id;
+
+    @ManyToOne
+    @MapsId("productId")
+    @JoinColumn(name = "product_id")
+    private ProductEntity product;
+
+    @ManyToOne
+    @MapsId("componentId")
+    @JoinColumn(name = "component_id")
+    private ProductEntity component;
+
+    @Column(name = "required_quantity", nullable = false)
+    private Integer requiredQuantity;
+}
@@ -0,0 +1,57 @@
+package org.autoflex.entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * A version of a sub-assembly line, valid from {@code validFrom} until
+ * {@code validTo} (exclusive; {@code null} while it is current).
+ */
+@Entity
+@Table(name = "product_components_history")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductComponentHistoryEntity extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_history_seq")
+    @SequenceGenerator(name = "catalog_history_seq", sequenceName = "catalog_history_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(name = "product_id", nullable = false, updatable = false)
+    private String productId;
+
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(name = "component_id", nullable = false, updatable = false)
+    private String componentId;
+
+    @Column(name = "required_quantity", nullable = false, updatable = false)
+    private Integer requiredQuantity;
+
+    @Column(name = "valid_from", nullable = false, updatable = false)
+    private Instant validFrom;
+
+    @Column(name = "valid_to")
+    private Instant validTo;
+
+    public ProductComponentHistoryEntity(String productId, String componentId, int requiredQuantity,
+                                         Instant validFrom) {
+        this.productId = productId;
+        this.componentId = componentId;
+        this.requiredQuantity = requiredQuantity;
+        this.validFrom = validFrom;
+    }
+}
@@ -6,8 +6,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
 
 @Entity
+@Cacheable
 @Table(name = "products")
 @Getter
 @Setter
@@ -15,8 +20,12 @@ import lombok.Setter;
 @AllArgsConstructor
 public class ProductEntity extends PanacheEntityBase {
 
+    /** Time-ordered (UUIDv7), so new rows append to the right of the primary key index. */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     @Column(name = "id", nullable = false, updatable = false)
     private String id;
 
@@ -0,0 +1,55 @@
+package org.autoflex.entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * A version of a product's name and value, valid from {@code validFrom}
+ * until {@code validTo} (exclusive; {@code null} while it is current).
+ * Written by {@link org.autoflex.services.CatalogHistoryServices}.
+ */
+@Entity
+@Table(name = "products_history")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductHistoryEntity extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_history_seq")
+    @SequenceGenerator(name = "catalog_history_seq", sequenceName = "catalog_history_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(name = "product_id", nullable = false, updatable = false)
+    private String productId;
+
+    @Column(name = "name", nullable = false, updatable = false, length = 150)
+    private String name;
+
+    @Column(name = "value", nullable = false, updatable = false)
+    private Integer value;
+
+    @Column(name = "valid_from", nullable = false, updatable = false)
+    private Instant validFrom;
+
+    @Column(name = "valid_to")
+    private Instant validTo;
+
+    public ProductHistoryEntity(String productId, String name, int value, Instant validFrom) {
+        this.productId = productId;
+        this.name = name;
+        this.value = value;
+        this.validFrom = validFrom;
+    }
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@Cacheable
 @Table(name = "product_materials")
 @Getter
 @Setter
@@ -15,6 +16,9 @@ import lombok.Setter;
 @AllArgsConstructor
 public class ProductMaterialEntity extends PanacheEntityBase {
 
+    /** Query-cache region for BOM lookups by product. */
+    public static final String BOM_BY_PRODUCT_CACHE = "bom-by-product";
+
     @EmbeddedId
     private ProductMaterialId id;
 
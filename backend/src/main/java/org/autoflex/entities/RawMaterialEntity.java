@@ -6,8 +6,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
 
 @Entity
+@Cacheable
 @Table(name = "raw_materials")
 @Getter
 @Setter
@@ -15,8 +20,12 @@ import lombok.Setter;
 @AllArgsConstructor
 public class RawMaterialEntity extends PanacheEntityBase {
 
+    /** Time-ordered (UUIDv7), so new rows append to the right of the primary key index. */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
     @Column(name = "id", nullable = false, updatable = false)
     private String id;
 
@@ -25,4 +34,12 @@ public class RawMaterialEntity extends PanacheEntityBase {
 
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity;
+
+    /** Units set aside by reservations; never more than {@link #stockQuantity}. */
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity = 0;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
 }
@@ -0,0 +1,63 @@
+package org.autoflex.entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * One change to a raw material's stock on hand and/or reservations. Rows
+ * are only ever inserted; the stock at any moment is the latest
+ * {@link StockSnapshotEntity} before it plus the movements since.
+ *
+ * <p>Ids come from a sequence allocated 50 at a time, so the movements of
+ * one transaction are written as a single JDBC batch. There is no foreign
+ * key to {@code raw_materials}: the history outlives a deleted material.
+ * {@code occurredAt} is the moment the recording transaction committed.
+ */
+@Entity
+@Table(name = "stock_movements")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockMovementEntity extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @JavaType(UuidStringJavaType.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(name = "raw_material_id", nullable = false, updatable = false)
+    private String rawMaterialId;
+
+    @Column(name = "stock_delta", nullable = false, updatable = false)
+    private Integer stockDelta;
+
+    @Column(name = "reserved_delta", nullable = false, updatable = false)
+    private Integer reservedDelta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, updatable = false, length = 20)
+    private StockMovementReason reason;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private Instant occurredAt;
+
+    public StockMovementEntity(String rawMaterialId, int stockDelta, int reservedDelta,
+                               StockMovementReason reason, Instant occurredAt) {
+        this.rawMaterialId = rawMaterialId;
+        this.stockDelta = stockDelta;
+        this.reservedDelta = reservedDelta;
+        this.reason = reason;
+        this.occurredAt = occurredAt;
+    }
+}
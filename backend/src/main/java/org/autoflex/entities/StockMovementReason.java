@@ -0,0 +1,16 @@
+package org.autoflex.entities;
+
+/** What caused a {@link StockMovementEntity}. */
+public enum StockMovementReason {
+    /** Opening stock of a new raw material, created one by one or in bulk. */
+    CREATE,
+    /** Stock on hand overwritten by an update; the delta is new minus old. */
+    SET,
+    RESERVE,
+    RELEASE,
+    CONSUME,
+    ADJUST,
+    PRODUCE,
+    /** The raw material was deleted; the deltas bring it back to zero. */
+    DELETE
+}
@@ -0,0 +1,42 @@
+package org.autoflex.entities;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Stock on hand and reserved of a raw material as of {@code takenAt},
+ * folded from every {@link StockMovementEntity} up to that moment. Written
+ * by the periodic compaction only for materials that moved since their
+ * previous snapshot. It stays the material's latest until {@code validTo},
+ * when the next one is taken ({@code null} while it is the latest), so the
+ * snapshots valid at T are found like catalog history versions.
+ */
+@Entity
+@Table(name = "stock_snapshots")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshotEntity extends PanacheEntityBase {
+
+    @EmbeddedId
+    private StockSnapshotId id;
+
+    @Column(name = "stock_quantity", nullable = false)
+    private Integer stockQuantity;
+
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity;
+
+    @Column(name = "valid_to")
+    private Instant validTo;
+}
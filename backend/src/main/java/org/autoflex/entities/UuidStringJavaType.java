@@ -0,0 +1,59 @@
+package org.autoflex.entities;
+
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.StringJavaType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Keeps ids as {@code String} in Java (and in the REST API) while storing
+ * them as UUIDs: native {@code uuid} on PostgreSQL and H2, {@code RAW(16)}
+ * on Oracle. Use together with {@code @JdbcTypeCode(SqlTypes.UUID)}.
+ *
+ * <p>A string that is not a UUID (e.g. a mistyped path parameter) is bound
+ * as a name-based UUID. That never equals a generated key, so lookups
+ * simply find nothing instead of failing.
+ */
+public class UuidStringJavaType extends StringJavaType {
+
+    @Override
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (UUID.class.isAssignableFrom(type)) {
+            return type.cast(toUuid(value));
+        }
+        if (byte[].class.isAssignableFrom(type)) {
+            UUID uuid = toUuid(value);
+            return type.cast(ByteBuffer.allocate(16)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array());
+        }
+        return super.unwrap(value, type, options);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value instanceof UUID uuid) {
+            return uuid.toString();
+        }
+        if (value instanceof byte[] bytes && bytes.length == 16) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return super.wrap(value, options);
+    }
+
+    /** The UUID an id string is stored as. */
+    public static UUID toUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
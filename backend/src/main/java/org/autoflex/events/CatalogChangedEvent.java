@@ -0,0 +1,47 @@
+package org.autoflex.events;
+
+/**
+ * Fired by the write paths of the services whenever products, raw materials
+ * or BOM lines change. Observers that keep derived state in memory use it to
+ * refresh only what was touched.
+ *
+ * @param kind          what changed
+ * @param productId     product whose row, BOM or sub-assemblies changed, or {@code null}
+ * @param rawMaterialId raw material whose row or BOM link changed, or {@code null}
+ */
+public record CatalogChangedEvent(
+        Kind kind,
+        String productId,
+        String rawMaterialId
+) {
+
+    public enum Kind {
+        PRODUCT,
+        RAW_MATERIAL,
+        BOM_LINE,
+        /** A sub-assembly line of {@code productId} was added, changed or removed. */
+        COMPONENT,
+        /** Bulk change too broad to describe by id; drop everything derived. */
+        ALL
+    }
+
+    public static CatalogChangedEvent product(String productId) {
+        return new CatalogChangedEvent(Kind.PRODUCT, productId, null);
+    }
+
+    public static CatalogChangedEvent rawMaterial(String rawMaterialId) {
+        return new CatalogChangedEvent(Kind.RAW_MATERIAL, null, rawMaterialId);
+    }
+
+    public static CatalogChangedEvent bomLine(String productId, String rawMaterialId) {
+        return new CatalogChangedEvent(Kind.BOM_LINE, productId, rawMaterialId);
+    }
+
+    public static CatalogChangedEvent component(String productId) {
+        return new CatalogChangedEvent(Kind.COMPONENT, productId, null);
+    }
+
+    public static CatalogChangedEvent all() {
+        return new CatalogChangedEvent(Kind.ALL, null, null);
+    }
+}
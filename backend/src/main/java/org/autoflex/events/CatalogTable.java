@@ -0,0 +1,11 @@
+package org.autoflex.events;
+
+/** Catalog tables whose change version is tracked by {@link CatalogVersions}. */
+public enum CatalogTable {
+    PRODUCTS,
+    RAW_MATERIALS,
+    PRODUCT_MATERIALS,
+    PRODUCT_COMPONENTS,
+    /** Derived; bumped when the view is refreshed, not by {@link CatalogChangedEvent}s. */
+    PRODUCT_AVAILABILITY
+}
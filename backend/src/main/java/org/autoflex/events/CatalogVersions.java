@@ -0,0 +1,62 @@
+package org.autoflex.events;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A change version per catalog table, bumped after every committed write
+ * that the services report through {@link CatalogChangedEvent}.
+ *
+ * <p>Versions only live in memory, so they are prefixed with an id drawn
+ * at startup: a tag handed out before a restart never matches afterwards.
+ * They only count this instance's writes, which is why conditional GETs
+ * are limited to single-instance deployments.
+ * BOM listings show product and material names, so changes to either
+ * table also bump {@link CatalogTable#PRODUCT_MATERIALS}, and product
+ * changes bump {@link CatalogTable#PRODUCT_COMPONENTS}.
+ */
+@ApplicationScoped
+public class CatalogVersions {
+
+    private final String epoch = Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+    private final AtomicLongArray versions = new AtomicLongArray(CatalogTable.values().length);
+
+    public long version(CatalogTable table) {
+        return versions.get(table.ordinal());
+    }
+
+    /**
+     * A tag that changes whenever any of the tables does. Read it before
+     * reading the data it describes, so a concurrent write can only make
+     * the tag older than the data, never newer.
+     */
+    public String tag(CatalogTable... tables) {
+        StringBuilder tag = new StringBuilder(epoch);
+        for (CatalogTable table : tables) {
+            tag.append('-').append(version(table));
+        }
+        return tag.toString();
+    }
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        switch (event.kind()) {
+            case PRODUCT -> bump(CatalogTable.PRODUCTS, CatalogTable.PRODUCT_MATERIALS,
+                    CatalogTable.PRODUCT_COMPONENTS);
+            case RAW_MATERIAL -> bump(CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS);
+            case BOM_LINE -> bump(CatalogTable.PRODUCT_MATERIALS);
+            case COMPONENT -> bump(CatalogTable.PRODUCT_COMPONENTS);
+            case ALL -> bump(CatalogTable.values());
+        }
+    }
+
+    /** Marks tables as changed; for derived tables refreshed outside the event flow. */
+    public void bump(CatalogTable... tables) {
+        for (CatalogTable table : tables) {
+            versions.incrementAndGet(table.ordinal());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.autoflex.metrics;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.inject.Inject;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares against the current HTTP
+ * request. Statements outside a request (startup, background work) are
+ * not counted. The SQL itself is returned untouched.
+ */
+@PersistenceUnitExtension
+public class CountingStatementInspector implements StatementInspector {
+
+    @Inject
+    SqlStatementCounter counter;
+
+    @Override
+    public String inspect(String sql) {
+        if (Arc.container().requestContext().isActive()) {
+            counter.increment();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,35 @@
+package org.autoflex.metrics;
+
+/** Names of the application's own meters, as exported on {@code /q/metrics}. */
+public final class MetricNames {
+
+    /** Timer on every service method, tagged {@code class}, {@code method} and {@code exception}. */
+    public static final String SERVICE = "autoflex.service";
+
+    /** SQL statements prepared while serving one request, tagged by resource method. */
+    public static final String SQL_STATEMENTS = "autoflex.http.sql.statements";
+
+    /** Planner run time, tagged {@code strategy}. */
+    public static final String PLAN_TIME = "autoflex.planner.plan";
+
+    /** Products handed to a planner run, tagged {@code strategy}. */
+    public static final String PRODUCTS_CONSIDERED = "autoflex.planner.products.considered";
+
+    /** Products a planner run decided to make at least one unit of, tagged {@code strategy}. */
+    public static final String PRODUCTS_PLANNED = "autoflex.planner.products.planned";
+
+    /** Time spent refreshing the materialized max-producible-units figures. */
+    public static final String AVAILABILITY_REFRESH = "autoflex.availability.refresh";
+
+    /** Time spent folding stock movements into snapshots. */
+    public static final String STOCK_COMPACTION = "autoflex.stock.compaction";
+
+    /** Virtual threads pinned to their carrier past the threshold, tagged {@code site}; virtual-thread build only. */
+    public static final String VIRTUAL_THREAD_PINNED = "autoflex.virtual.threads.pinned";
+
+    /** Timer recorded by the Quarkus HTTP server binder. */
+    static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+    private MetricNames() {
+    }
+}
@@ -0,0 +1,38 @@
+package org.autoflex.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+
+/**
+ * Publishes latency histograms for HTTP requests and planner runs so that
+ * percentiles can be aggregated across instances in Prometheus. Buckets are
+ * limited to 1ms..30s to keep the series count down.
+ */
+@Singleton
+public class MetricsConfiguration {
+
+    @Produces
+    @Singleton
+    public MeterFilter latencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(MetricNames.HTTP_SERVER_REQUESTS)
+                        && !id.getName().equals(MetricNames.PLAN_TIME)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package org.autoflex.metrics;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/** Number of SQL statements prepared so far in the current request. */
+@RequestScoped
+public class SqlStatementCounter {
+
+    private int count;
+
+    void increment() {
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+}
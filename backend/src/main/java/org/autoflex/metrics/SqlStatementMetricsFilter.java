@@ -0,0 +1,34 @@
+package org.autoflex.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+import org.jboss.resteasy.reactive.server.SimpleResourceInfo;
+
+/**
+ * Records how many SQL statements each request issued, per resource
+ * method, so that N+1 regressions show up as a jump in the distribution.
+ * Statements run while a streamed body is being written are not included.
+ */
+public class SqlStatementMetricsFilter {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    SqlStatementCounter counter;
+
+    @ServerResponseFilter
+    public void recordStatements(SimpleResourceInfo resourceInfo) {
+        if (resourceInfo == null || resourceInfo.getResourceClass() == null) {
+            return;
+        }
+        DistributionSummary.builder(MetricNames.SQL_STATEMENTS)
+                .description("SQL statements prepared per request")
+                .tag("class", resourceInfo.getResourceClass().getSimpleName())
+                .tag("method", resourceInfo.getMethodName())
+                .register(registry)
+                .record(counter.count());
+    }
+}
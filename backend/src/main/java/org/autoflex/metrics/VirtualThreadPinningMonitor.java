@@ -0,0 +1,81 @@
+package org.autoflex.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, in the
+ * virtual-thread build. Listens to the JDK's {@code jdk.VirtualThreadPinned}
+ * JFR event in-process: each occurrence longer than the threshold is
+ * counted, tagged with the application frame that caused it, and logged
+ * with a short stack. Blocking while holding a monitor is the usual cause.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "virtual")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger LOG = Logger.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "autoflex.virtual-threads.pinning-threshold", defaultValue = "20ms")
+    Duration threshold;
+
+    private RecordingStream stream;
+
+    void start(@Observes StartupEvent event) {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+    }
+
+    void stop(@Observes ShutdownEvent event) {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith("org.autoflex."))
+                .findFirst()
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse("unknown");
+
+        Counter.builder(MetricNames.VIRTUAL_THREAD_PINNED)
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .tag("site", site)
+                .register(registry)
+                .increment();
+        LOG.warnf("Virtual thread pinned for %d ms at %s%n%s", event.getDuration().toMillis(), site,
+                frames.stream().limit(LOGGED_FRAMES)
+                        .map(frame -> "\tat " + describe(frame))
+                        .collect(Collectors.joining("\n")));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
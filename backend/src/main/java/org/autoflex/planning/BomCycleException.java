@@ -0,0 +1,19 @@
+package org.autoflex.planning;
+
+import java.util.List;
+
+/** A product's BOM contains the product itself, through one or more sub-assemblies. */
+public class BomCycleException extends RuntimeException {
+
+    private final List<String> cycle;
+
+    public BomCycleException(List<String> cycle) {
+        super("Bill of materials cycle: " + String.join(" -> ", cycle));
+        this.cycle = List.copyOf(cycle);
+    }
+
+    /** Product ids along the cycle, starting and ending with the same product. */
+    public List<String> cycle() {
+        return cycle;
+    }
+}
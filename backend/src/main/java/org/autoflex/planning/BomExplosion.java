@@ -0,0 +1,153 @@
+package org.autoflex.planning;
+
+import java.util.*;
+
+/**
+ * Flattens nested BOMs into raw-material requirements.
+ *
+ * <p>A product's BOM lists raw materials ({@link BomLine}) and may list
+ * other products as sub-assemblies ({@link ComponentLine}). Its explosion
+ * is the raw material needed for one unit: its own lines plus each
+ * sub-assembly's explosion times the quantity used. Explosions are memoized
+ * per product, so a sub-assembly shared by many products is walked once.
+ * Replacing a product's lines drops the memo of that product and of the
+ * products above it, found through a reverse index, and nothing else.
+ *
+ * <p>Quantities are capped at {@link Integer#MAX_VALUE}, which no stock can
+ * cover anyway. Not thread-safe; the owner guards it.
+ */
+public final class BomExplosion {
+
+    private final Map<String, List<BomLine>> materials = new HashMap<>();
+    private final Map<String, List<ComponentLine>> components = new HashMap<>();
+    /** component id → products using it directly */
+    private final Map<String, Set<String>> parents = new HashMap<>();
+    /** product id → (raw material id → quantity per unit), for products exploded since their last change */
+    private final Map<String, Map<String, Integer>> memo = new HashMap<>();
+
+    /**
+     * @param bomByProduct   raw-material lines keyed by product id
+     * @param componentLines every sub-assembly line
+     */
+    public static BomExplosion of(Map<String, List<BomLine>> bomByProduct, Collection<ComponentLine> componentLines) {
+        BomExplosion explosion = new BomExplosion();
+        bomByProduct.forEach((productId, lines) -> {
+            if (!lines.isEmpty()) {
+                explosion.materials.put(productId, List.copyOf(lines));
+            }
+        });
+        for (ComponentLine line : componentLines) {
+            explosion.components.computeIfAbsent(line.productId(), k -> new ArrayList<>()).add(line);
+            explosion.parents.computeIfAbsent(line.componentId(), k -> new HashSet<>()).add(line.productId());
+        }
+        return explosion;
+    }
+
+    public boolean hasComponents(String productId) {
+        return components.containsKey(productId);
+    }
+
+    /**
+     * Replaces the direct lines of a product; empty lists remove it.
+     *
+     * @return the product and every product above it, whose explosions may have changed
+     */
+    public Set<String> update(String productId, List<BomLine> materialLines, List<ComponentLine> componentLines) {
+        for (ComponentLine old : components.getOrDefault(productId, List.of())) {
+            Set<String> users = parents.get(old.componentId());
+            if (users != null && users.remove(productId) && users.isEmpty()) {
+                parents.remove(old.componentId());
+            }
+        }
+        if (materialLines.isEmpty()) {
+            materials.remove(productId);
+        } else {
+            materials.put(productId, List.copyOf(materialLines));
+        }
+        if (componentLines.isEmpty()) {
+            components.remove(productId);
+        } else {
+            components.put(productId, List.copyOf(componentLines));
+            componentLines.forEach(line ->
+                    parents.computeIfAbsent(line.componentId(), k -> new HashSet<>()).add(productId));
+        }
+
+        Set<String> affected = ancestorsOf(productId);
+        affected.forEach(memo::remove);
+        return affected;
+    }
+
+    /** The product and every product that uses it, directly or through other sub-assemblies. */
+    public Set<String> ancestorsOf(String productId) {
+        Set<String> seen = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(List.of(productId));
+        while (!pending.isEmpty()) {
+            String id = pending.pop();
+            if (seen.add(id)) {
+                pending.addAll(parents.getOrDefault(id, Set.of()));
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Raw material needed for one unit of the product.
+     *
+     * @return raw material id → quantity; empty for a product without a BOM
+     * @throws BomCycleException if the product contains itself
+     */
+    public Map<String, Integer> explode(String productId) {
+        return explode(productId, new ArrayList<>());
+    }
+
+    /**
+     * {@link #explode(String)} as BOM lines of the product. A product
+     * without sub-assemblies gets its own lines back, without copying.
+     */
+    public List<BomLine> explodedBom(String productId) {
+        if (!hasComponents(productId)) {
+            return materials.getOrDefault(productId, List.of());
+        }
+        List<BomLine> lines = new ArrayList<>();
+        explode(productId).forEach((rawMaterialId, quantity) ->
+                lines.add(new BomLine(productId, rawMaterialId, quantity)));
+        return lines;
+    }
+
+    private Map<String, Integer> explode(String productId, List<String> path) {
+        Map<String, Integer> cached = memo.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        int start = path.indexOf(productId);
+        if (start >= 0) {
+            List<String> cycle = new ArrayList<>(path.subList(start, path.size()));
+            cycle.add(productId);
+            throw new BomCycleException(cycle);
+        }
+
+        path.add(productId);
+        Map<String, Integer> total = new LinkedHashMap<>();
+        for (BomLine line : materials.getOrDefault(productId, List.of())) {
+            total.merge(line.rawMaterialId(), line.requiredQuantity(), BomExplosion::cappedSum);
+        }
+        for (ComponentLine line : components.getOrDefault(productId, List.of())) {
+            explode(line.componentId(), path).forEach((rawMaterialId, quantity) ->
+                    total.merge(rawMaterialId, capped((long) quantity * line.requiredQuantity()),
+                            BomExplosion::cappedSum));
+        }
+        path.remove(path.size() - 1);
+
+        Map<String, Integer> exploded = Collections.unmodifiableMap(total);
+        memo.put(productId, exploded);
+        return exploded;
+    }
+
+    private static int cappedSum(int a, int b) {
+        return capped((long) a + b);
+    }
+
+    private static int capped(long quantity) {
+        return (int) Math.min(quantity, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,14 @@
+package org.autoflex.planning;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+/**
+ * One line of a product's bill of materials, projected straight from
+ * {@code product_materials} without hydrating the associations.
+ */
+public record BomLine(
+        @ProjectedFieldName("id.productId") String productId,
+        @ProjectedFieldName("id.rawMaterialId") String rawMaterialId,
+        Integer requiredQuantity
+) {
+}
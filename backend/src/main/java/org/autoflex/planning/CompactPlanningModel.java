@@ -0,0 +1,202 @@
+package org.autoflex.planning;
+
+import java.util.*;
+
+/**
+ * Array form of a {@link PlanningModel} for the planners' inner loops.
+ *
+ * <p>Product and raw-material ids are interned to dense indices once, stock
+ * is a {@code long[]} and BOMs are stored in CSR (compressed sparse row)
+ * layout: the lines of product {@code p} are
+ * {@code bomMaterial[bomStart[p] .. bomStart[p + 1])} with the matching
+ * {@code bomRequired} entries. Planning then needs no boxing, hashing or
+ * per-line objects. A material named by a BOM but missing from the stock
+ * gets an index with zero stock.
+ *
+ * <p>Instances are immutable; the arrays are only exposed to the planners
+ * in this package, which must not write to them.
+ */
+public final class CompactPlanningModel {
+
+    final String[] productIds;
+    final String[] productNames;
+    final int[] productValue;
+    /** Product indices by descending value, ties in catalog order. */
+    final int[] byValueDesc;
+
+    final int[] bomStart;
+    final int[] bomMaterial;
+    final int[] bomRequired;
+
+    final String[] materialIds;
+    final long[] stock;
+
+    private final Map<String, Integer> productIndex;
+    private final Map<String, Integer> materialIndex;
+
+    private CompactPlanningModel(String[] productIds, String[] productNames, int[] productValue,
+                                 int[] byValueDesc, int[] bomStart, int[] bomMaterial, int[] bomRequired,
+                                 String[] materialIds, long[] stock,
+                                 Map<String, Integer> productIndex, Map<String, Integer> materialIndex) {
+        this.productIds = productIds;
+        this.productNames = productNames;
+        this.productValue = productValue;
+        this.byValueDesc = byValueDesc;
+        this.bomStart = bomStart;
+        this.bomMaterial = bomMaterial;
+        this.bomRequired = bomRequired;
+        this.materialIds = materialIds;
+        this.stock = stock;
+        this.productIndex = productIndex;
+        this.materialIndex = materialIndex;
+    }
+
+    public static CompactPlanningModel of(PlanningModel model) {
+        Map<String, Integer> materialIndex = new HashMap<>(model.stock().size() * 2);
+        List<String> materialIds = new ArrayList<>(model.stock().size());
+        model.stock().keySet().forEach(id -> {
+            materialIndex.put(id, materialIds.size());
+            materialIds.add(id);
+        });
+
+        List<PlanningProduct> products = model.products();
+        int n = products.size();
+        String[] productIds = new String[n];
+        String[] productNames = new String[n];
+        int[] productValue = new int[n];
+        int[] bomStart = new int[n + 1];
+        Map<String, Integer> productIndex = new HashMap<>(n * 2);
+
+        int lineCount = 0;
+        for (PlanningProduct product : products) {
+            lineCount += model.bomOf(product.id()).size();
+        }
+        int[] bomMaterial = new int[lineCount];
+        int[] bomRequired = new int[lineCount];
+
+        int k = 0;
+        for (int p = 0; p < n; p++) {
+            PlanningProduct product = products.get(p);
+            productIds[p] = product.id();
+            productIndex.put(product.id(), p);
+            productNames[p] = product.name();
+            productValue[p] = product.value();
+            bomStart[p] = k;
+            for (BomLine line : model.bomOf(product.id())) {
+                Integer m = materialIndex.get(line.rawMaterialId());
+                if (m == null) {
+                    m = materialIds.size();
+                    materialIndex.put(line.rawMaterialId(), m);
+                    materialIds.add(line.rawMaterialId());
+                }
+                bomMaterial[k] = m;
+                bomRequired[k] = line.requiredQuantity();
+                k++;
+            }
+        }
+        bomStart[n] = k;
+
+        long[] stock = new long[materialIds.size()];
+        for (int m = 0; m < stock.length; m++) {
+            stock[m] = model.stock().getOrDefault(materialIds.get(m), 0);
+        }
+
+        return new CompactPlanningModel(productIds, productNames, productValue, sortByValueDesc(productValue),
+                bomStart, bomMaterial, bomRequired, materialIds.toArray(String[]::new), stock,
+                productIndex, materialIndex);
+    }
+
+    /**
+     * A model with the same products and BOMs but different stock and/or
+     * product values, e.g. for a what-if scenario. Only the arrays passed
+     * in are new; everything else is shared with this model.
+     *
+     * @param stock        stock per material index, as from {@link #stockCopy()}
+     * @param productValue value per product index, as from {@link #valueCopy()}
+     */
+    public CompactPlanningModel withOverrides(long[] stock, int[] productValue) {
+        if (stock.length != this.stock.length || productValue.length != this.productValue.length) {
+            throw new IllegalArgumentException("Overrides must cover every material and product");
+        }
+        int[] order = Arrays.equals(productValue, this.productValue) ? byValueDesc : sortByValueDesc(productValue);
+        return new CompactPlanningModel(productIds, productNames, productValue, order,
+                bomStart, bomMaterial, bomRequired, materialIds, stock, productIndex, materialIndex);
+    }
+
+    /** Product indices by descending value, ties in catalog order. */
+    private static int[] sortByValueDesc(int[] productValue) {
+        // Sort (-value, index) packed in a long, which keeps equal values in index order
+        int n = productValue.length;
+        long[] keys = new long[n];
+        for (int p = 0; p < n; p++) {
+            keys[p] = ((long) -productValue[p] << 32) | p;
+        }
+        Arrays.sort(keys);
+        int[] byValueDesc = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            byValueDesc[rank] = (int) keys[rank];
+        }
+        return byValueDesc;
+    }
+
+    public int productCount() {
+        return productIds.length;
+    }
+
+    public int materialCount() {
+        return materialIds.length;
+    }
+
+    /** Index of the product at {@code rank} when sorted by descending value. */
+    public int productByValueDesc(int rank) {
+        return byValueDesc[rank];
+    }
+
+    public String productId(int product) {
+        return productIds[product];
+    }
+
+    public String productName(int product) {
+        return productNames[product];
+    }
+
+    public int productValue(int product) {
+        return productValue[product];
+    }
+
+    /** @return the index of the product, or {@code -1} if it is not in the model */
+    public int productIndex(String productId) {
+        return productIndex.getOrDefault(productId, -1);
+    }
+
+    /** @return the index of the material, or {@code -1} if it is neither stocked nor used by a BOM */
+    public int materialIndex(String rawMaterialId) {
+        return materialIndex.getOrDefault(rawMaterialId, -1);
+    }
+
+    boolean hasBom(int product) {
+        return bomStart[product + 1] > bomStart[product];
+    }
+
+    /** A fresh copy of the stock per material index, for a planner to consume. */
+    public long[] stockCopy() {
+        return stock.clone();
+    }
+
+    /** A fresh copy of the value per product index. */
+    public int[] valueCopy() {
+        return productValue.clone();
+    }
+
+    /** Converts per-product units (indexed like the products) to a plan keyed by product id. */
+    public Map<String, Integer> toPlan(int[] units) {
+        Map<String, Integer> plan = new LinkedHashMap<>();
+        for (int rank = 0; rank < byValueDesc.length; rank++) {
+            int p = byValueDesc[rank];
+            if (units[p] > 0) {
+                plan.put(productIds[p], units[p]);
+            }
+        }
+        return plan;
+    }
+}
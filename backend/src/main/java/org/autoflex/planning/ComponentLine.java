@@ -0,0 +1,15 @@
+package org.autoflex.planning;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+/**
+ * One sub-assembly line of a product's bill of materials: {@code productId}
+ * consumes {@code requiredQuantity} units of the product {@code componentId}.
+ * Projected straight from {@code product_components}.
+ */
+public record ComponentLine(
+        @ProjectedFieldName("id.productId") String productId,
+        @ProjectedFieldName("id.componentId") String componentId,
+        Integer requiredQuantity
+) {
+}
@@ -0,0 +1,51 @@
+package org.autoflex.planning;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Takes products by descending unit value and makes as many units of each
+ * as the remaining stock allows.
+ */
+@ApplicationScoped
+public class GreedyPlanner implements ProductionPlanner {
+
+    public static final String NAME = "greedy";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int[] plan(CompactPlanningModel model) {
+        long[] availableStock = model.stockCopy();
+        int[] bomStart = model.bomStart;
+        int[] bomMaterial = model.bomMaterial;
+        int[] bomRequired = model.bomRequired;
+        int[] units = new int[model.productCount()];
+
+        for (int rank = 0; rank < units.length; rank++) {
+            int p = model.byValueDesc[rank];
+            int from = bomStart[p];
+            int to = bomStart[p + 1];
+            if (from == to) {
+                continue;
+            }
+
+            long quantity = Integer.MAX_VALUE;
+            for (int k = from; k < to; k++) {
+                quantity = Math.min(quantity, availableStock[bomMaterial[k]] / bomRequired[k]);
+            }
+            if (quantity <= 0) {
+                continue;
+            }
+
+            for (int k = from; k < to; k++) {
+                availableStock[bomMaterial[k]] -= quantity * bomRequired[k];
+            }
+            units[p] = (int) quantity;
+        }
+
+        return units;
+    }
+}
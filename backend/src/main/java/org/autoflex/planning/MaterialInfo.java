@@ -0,0 +1,13 @@
+package org.autoflex.planning;
+
+/**
+ * Raw material as seen by the where-used index: its name and what is available.
+ *
+ * @param availableQuantity units available for production (on hand minus reserved)
+ */
+public record MaterialInfo(
+        String id,
+        String name,
+        Integer availableQuantity
+) {
+}
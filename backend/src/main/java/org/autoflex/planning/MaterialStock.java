@@ -0,0 +1,12 @@
+package org.autoflex.planning;
+
+/**
+ * Raw material stock level as seen by the planner.
+ *
+ * @param stockQuantity units available for production (on hand minus reserved)
+ */
+public record MaterialStock(
+        String id,
+        Integer stockQuantity
+) {
+}
@@ -0,0 +1,221 @@
+package org.autoflex.planning;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Integer-linear-programming planner: maximises {@code sum(value * quantity)}
+ * subject to {@code sum(required_quantity * quantity) <= stock_quantity} for
+ * every raw material.
+ *
+ * <p>Solved in-process by depth-first branch and bound. The greedy plan is
+ * the starting incumbent, so the answer is never worse than greedy. When the
+ * time budget runs out the best plan found so far is returned.
+ */
+@ApplicationScoped
+public class OptimalPlanner implements ProductionPlanner {
+
+    public static final String NAME = "optimal";
+
+    /** Check the clock every this many nodes; {@code System.nanoTime} is not free. */
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private static final int UNSET = -1;
+
+    @Inject
+    GreedyPlanner greedyPlanner;
+
+    @ConfigProperty(name = "autoflex.planning.optimal.time-budget", defaultValue = "500ms")
+    Duration timeBudget;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int[] plan(CompactPlanningModel model) {
+        int[] warmStart = greedyPlanner.plan(model);
+        Search search = new Search(model, warmStart, System.nanoTime() + timeBudget.toNanos());
+        search.run();
+        return search.bestPlan();
+    }
+
+    /**
+     * Search state over the products that have a BOM and a positive value,
+     * by descending value. The BOM arrays are shared with the model; only
+     * the stock is copied, since the search consumes it.
+     */
+    private static final class Search {
+
+        private final int productCount;
+        /** Model index of the product at each search depth. */
+        private final int[] products;
+        private final long[] value;
+        private final int[] bomStart;
+        private final int[] bomMaterial;
+        private final int[] bomRequired;
+        private final long[] stock;
+        private final long deadline;
+
+        private final int[] current;
+        private final int[] best;
+        private long bestValue;
+
+        // Scratch space for the bound, reset after every use
+        private final double[] bestRatio;
+        private final long[] usingMaterial;
+        private final boolean[] touched;
+        private final int[] touchedList;
+
+        Search(CompactPlanningModel model, int[] warmStart, long deadline) {
+            this.deadline = deadline;
+            this.productCount = model.productCount();
+
+            int n = 0;
+            int[] candidates = new int[productCount];
+            for (int rank = 0; rank < productCount; rank++) {
+                int p = model.byValueDesc[rank];
+                if (model.productValue[p] > 0 && model.hasBom(p)) {
+                    candidates[n++] = p;
+                }
+            }
+            products = Arrays.copyOf(candidates, n);
+
+            value = new long[n];
+            bomStart = model.bomStart;
+            bomMaterial = model.bomMaterial;
+            bomRequired = model.bomRequired;
+            stock = model.stockCopy();
+
+            int m = stock.length;
+            bestRatio = new double[m];
+            usingMaterial = new long[m];
+            touched = new boolean[m];
+            touchedList = new int[m];
+
+            current = new int[n];
+            best = new int[n];
+            for (int d = 0; d < n; d++) {
+                value[d] = model.productValue[products[d]];
+                best[d] = warmStart[products[d]];
+                bestValue += value[d] * best[d];
+            }
+        }
+
+        void run() {
+            int n = products.length;
+            Arrays.fill(current, UNSET);
+            long currentValue = 0;
+            long nodes = 0;
+            int depth = 0;
+
+            while (depth >= 0) {
+                if (depth == n) {
+                    if (currentValue > bestValue) {
+                        bestValue = currentValue;
+                        System.arraycopy(current, 0, best, 0, n);
+                    }
+                    depth--;
+                    continue;
+                }
+
+                if (current[depth] == UNSET) {
+                    // Entering a node: prune, or take the largest feasible quantity first
+                    if (nodes++ % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                        return;
+                    }
+                    if (currentValue + upperBound(depth) <= bestValue) {
+                        depth--;
+                        continue;
+                    }
+                    int quantity = maxUnits(depth);
+                    consume(depth, quantity);
+                    current[depth] = quantity;
+                    currentValue += value[depth] * quantity;
+                    depth++;
+                } else {
+                    // Back from the subtree: retry with one unit less
+                    int quantity = current[depth];
+                    consume(depth, -quantity);
+                    currentValue -= value[depth] * quantity;
+                    if (quantity == 0) {
+                        current[depth] = UNSET;
+                        depth--;
+                        continue;
+                    }
+                    quantity--;
+                    consume(depth, quantity);
+                    current[depth] = quantity;
+                    currentValue += value[depth] * quantity;
+                    depth++;
+                }
+            }
+        }
+
+        int[] bestPlan() {
+            int[] units = new int[productCount];
+            for (int d = 0; d < products.length; d++) {
+                units[products[d]] = best[d];
+            }
+            return units;
+        }
+
+        private int maxUnits(int d) {
+            int p = products[d];
+            long max = Integer.MAX_VALUE;
+            for (int k = bomStart[p]; k < bomStart[p + 1]; k++) {
+                max = Math.min(max, stock[bomMaterial[k]] / bomRequired[k]);
+            }
+            return (int) Math.max(0, max);
+        }
+
+        private void consume(int d, int quantity) {
+            int p = products[d];
+            for (int k = bomStart[p]; k < bomStart[p + 1]; k++) {
+                stock[bomMaterial[k]] -= (long) bomRequired[k] * quantity;
+            }
+        }
+
+        /**
+         * Upper bound on the value still obtainable from products
+         * {@code from..n-1}. Each product alone is capped by its own max units;
+         * on top of that, for every single material the products sharing it
+         * cannot earn more than a fractional knapsack over that material.
+         */
+        private long upperBound(int from) {
+            int touchedCount = 0;
+            long independent = 0;
+
+            for (int d = from; d < products.length; d++) {
+                long cap = value[d] * maxUnits(d);
+                independent += cap;
+                int p = products[d];
+                for (int k = bomStart[p]; k < bomStart[p + 1]; k++) {
+                    int m = bomMaterial[k];
+                    if (!touched[m]) {
+                        touched[m] = true;
+                        touchedList[touchedCount++] = m;
+                    }
+                    bestRatio[m] = Math.max(bestRatio[m], (double) value[d] / bomRequired[k]);
+                    usingMaterial[m] += cap;
+                }
+            }
+
+            double bound = independent;
+            for (int t = 0; t < touchedCount; t++) {
+                int m = touchedList[t];
+                double shared = Math.min(stock[m] * bestRatio[m], usingMaterial[m]);
+                bound = Math.min(bound, independent - usingMaterial[m] + shared);
+                touched[m] = false;
+                bestRatio[m] = 0;
+                usingMaterial[m] = 0;
+            }
+            return (long) Math.floor(bound);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.autoflex.planning;
+
+import org.autoflex.dto.ProductionResultDto;
+
+/**
+ * A production plan together with the catalog version it was computed for.
+ *
+ * @param version catalog change counter at the time the plan was (re)validated
+ * @param result  the plan itself
+ */
+public record PlanSnapshot(
+        long version,
+        ProductionResultDto result
+) {
+}
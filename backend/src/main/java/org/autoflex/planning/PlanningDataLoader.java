@@ -0,0 +1,166 @@
+package org.autoflex.planning;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.autoflex.entities.ProductComponentEntity;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.ProductMaterialEntity;
+import org.autoflex.entities.RawMaterialEntity;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the whole planning graph in exactly three set-based projection
+ * queries (products, stock, BOM lines), independent of catalog size.
+ * No entity is hydrated, so the {@code @ManyToOne} joins of
+ * {@link ProductMaterialEntity} are never triggered.
+ *
+ * <p>{@link #load()} returns each product's own raw-material lines;
+ * sub-assembly lines are read separately, for {@link BomExplosion}.
+ *
+ * <p>The point loaders refresh a single product or material after a change
+ * without re-reading the whole graph. {@link #lockBomTree} is for writers:
+ * it reads one product's BOM tree from the database and locks it.
+ */
+@ApplicationScoped
+public class PlanningDataLoader {
+
+    /** Reserved units are already spoken for, so the planner only sees what is available. */
+    private static final String AVAILABLE_STOCK = "select new org.autoflex.planning.MaterialStock("
+            + "rm.id, rm.stockQuantity - rm.reservedQuantity) from RawMaterialEntity rm";
+
+    private static final String TREE_MATERIALS = "select new org.autoflex.planning.BomLine("
+            + "pm.id.productId, pm.id.rawMaterialId, pm.requiredQuantity) "
+            + "from ProductMaterialEntity pm where pm.id.productId in :ids";
+
+    private static final String TREE_COMPONENTS = "select new org.autoflex.planning.ComponentLine("
+            + "pc.id.productId, pc.id.componentId, pc.requiredQuantity) "
+            + "from ProductComponentEntity pc where pc.id.productId in :ids";
+
+    private static final String MATERIAL_INFO = "select new org.autoflex.planning.MaterialInfo("
+            + "rm.id, rm.name, rm.stockQuantity - rm.reservedQuantity) from RawMaterialEntity rm";
+
+    public PlanningModel load() {
+        List<PlanningProduct> products = loadProducts();
+
+        Map<String, Integer> stock = new HashMap<>();
+        RawMaterialEntity.getEntityManager()
+                .createQuery(AVAILABLE_STOCK, MaterialStock.class)
+                .getResultList()
+                .forEach(rm -> stock.put(rm.id(), rm.stockQuantity()));
+
+        Map<String, List<BomLine>> bomByProduct = new HashMap<>();
+        loadAllBomLines()
+                .forEach(line -> bomByProduct
+                        .computeIfAbsent(line.productId(), k -> new ArrayList<>())
+                        .add(line));
+
+        return new PlanningModel(products, stock, bomByProduct);
+    }
+
+    public Optional<PlanningProduct> loadProduct(String productId) {
+        return ProductEntity.find("id", productId)
+                .project(PlanningProduct.class)
+                .firstResultOptional();
+    }
+
+    public List<BomLine> loadBom(String productId) {
+        return ProductMaterialEntity.find("id.productId", productId)
+                .project(BomLine.class)
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .withHint(HibernateHints.HINT_CACHE_REGION, ProductMaterialEntity.BOM_BY_PRODUCT_CACHE)
+                .list();
+    }
+
+    /**
+     * The raw-material and sub-assembly lines of the product and of every
+     * product below it, read one level per pair of queries inside the
+     * caller's transaction and share-locked until it ends. Never served from
+     * the query cache, so it sees writes made by any instance.
+     */
+    public BomExplosion lockBomTree(String productId) {
+        Map<String, List<BomLine>> bomByProduct = new HashMap<>();
+        List<ComponentLine> componentLines = new ArrayList<>();
+        Set<String> seen = new HashSet<>(Set.of(productId));
+        Set<String> level = Set.of(productId);
+        while (!level.isEmpty()) {
+            ProductMaterialEntity.getEntityManager()
+                    .createQuery(TREE_MATERIALS, BomLine.class)
+                    .setParameter("ids", level)
+                    .setLockMode(LockModeType.PESSIMISTIC_READ)
+                    .getResultList()
+                    .forEach(line -> bomByProduct
+                            .computeIfAbsent(line.productId(), k -> new ArrayList<>())
+                            .add(line));
+            List<ComponentLine> components = ProductComponentEntity.getEntityManager()
+                    .createQuery(TREE_COMPONENTS, ComponentLine.class)
+                    .setParameter("ids", level)
+                    .setLockMode(LockModeType.PESSIMISTIC_READ)
+                    .getResultList();
+            componentLines.addAll(components);
+
+            // A cycle stops here; BomExplosion reports it when exploded
+            Set<String> next = new HashSet<>();
+            components.forEach(line -> {
+                if (seen.add(line.componentId())) {
+                    next.add(line.componentId());
+                }
+            });
+            level = next;
+        }
+        return BomExplosion.of(bomByProduct, componentLines);
+    }
+
+    public Optional<MaterialStock> loadStock(String rawMaterialId) {
+        return RawMaterialEntity.getEntityManager()
+                .createQuery(AVAILABLE_STOCK + " where rm.id = :id", MaterialStock.class)
+                .setParameter("id", rawMaterialId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public List<BomLine> loadAllBomLines() {
+        return ProductMaterialEntity.findAll()
+                .project(BomLine.class)
+                .list();
+    }
+
+    public List<ComponentLine> loadComponents(String productId) {
+        return ProductComponentEntity.find("id.productId", productId)
+                .project(ComponentLine.class)
+                .list();
+    }
+
+    public List<ComponentLine> loadAllComponentLines() {
+        return ProductComponentEntity.findAll()
+                .project(ComponentLine.class)
+                .list();
+    }
+
+    public List<PlanningProduct> loadProducts() {
+        return ProductEntity.findAll()
+                .project(PlanningProduct.class)
+                .list();
+    }
+
+    public List<MaterialInfo> loadMaterials() {
+        return RawMaterialEntity.getEntityManager()
+                .createQuery(MATERIAL_INFO, MaterialInfo.class)
+                .getResultList();
+    }
+
+    public Optional<MaterialInfo> loadMaterial(String rawMaterialId) {
+        return RawMaterialEntity.getEntityManager()
+                .createQuery(MATERIAL_INFO + " where rm.id = :id", MaterialInfo.class)
+                .setParameter("id", rawMaterialId)
+                .getResultStream()
+                .findFirst();
+    }
+}
@@ -0,0 +1,23 @@
+package org.autoflex.planning;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory snapshot of the product / BOM / stock graph the production
+ * planner runs against.
+ *
+ * @param products     every product in the catalog
+ * @param stock        stock quantity keyed by raw material id
+ * @param bomByProduct BOM lines keyed by product id (products without a BOM are absent)
+ */
+public record PlanningModel(
+        List<PlanningProduct> products,
+        Map<String, Integer> stock,
+        Map<String, List<BomLine>> bomByProduct
+) {
+
+    public List<BomLine> bomOf(String productId) {
+        return bomByProduct.getOrDefault(productId, List.of());
+    }
+}
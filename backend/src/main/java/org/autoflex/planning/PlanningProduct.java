@@ -0,0 +1,11 @@
+package org.autoflex.planning;
+
+/**
+ * Product row as seen by the planner: only the columns the algorithm needs.
+ */
+public record PlanningProduct(
+        String id,
+        String name,
+        Integer value
+) {
+}
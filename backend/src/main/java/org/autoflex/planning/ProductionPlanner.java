@@ -0,0 +1,31 @@
+package org.autoflex.planning;
+
+import java.util.Map;
+
+/**
+ * Strategy for turning a {@link PlanningModel} into a production plan.
+ * Implementations are CDI beans selected by {@link #name()}.
+ */
+public interface ProductionPlanner {
+
+    /** Strategy name used to select the planner, e.g. {@code ?strategy=greedy}. */
+    String name();
+
+    /**
+     * Computes how many units of each product to make without exceeding stock.
+     *
+     * @return units per product index of the model; zero for products that should not be made
+     */
+    int[] plan(CompactPlanningModel model);
+
+    /**
+     * Convenience form over the map-based model; converts it first, so
+     * callers planning repeatedly should keep a {@link CompactPlanningModel}.
+     *
+     * @return units keyed by product id; products that should not be made are absent
+     */
+    default Map<String, Integer> plan(PlanningModel model) {
+        CompactPlanningModel compact = CompactPlanningModel.of(model);
+        return compact.toPlan(plan(compact));
+    }
+}
@@ -0,0 +1,17 @@
+package org.autoflex.planning;
+
+import org.autoflex.dto.ScenarioResultDto;
+
+import java.util.List;
+
+/**
+ * What-if plans together with the catalog version they were all computed against.
+ *
+ * @param version catalog change counter of the shared snapshot
+ * @param results one plan per scenario, in request order
+ */
+public record ScenarioSnapshot(
+        long version,
+        List<ScenarioResultDto> results
+) {
+}
@@ -0,0 +1,152 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.ProductMaterialResponseDto;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.autoflex.planning.BomCycleException;
+import org.autoflex.planning.BomExplosion;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.PlanningDataLoader;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Raw-material requirements of products with nested BOMs, from a memoized
+ * {@link BomExplosion} of the whole catalog.
+ *
+ * <p>The explosion is loaded once and then patched from
+ * {@link CatalogChangedEvent}s: a changed product has its lines re-read,
+ * and only its memo and those of the products above it are dropped.
+ */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class BomExplosionServices {
+
+    @Inject
+    PlanningDataLoader planningDataLoader;
+
+    private final Set<String> dirtyProducts = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadAll = new AtomicBoolean(true);
+
+    /** Guards {@link #explosion}; the holder may wait on the database, so not a monitor. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private BomExplosion explosion;
+
+    /**
+     * The product's BOM flattened to raw materials, one line per material
+     * with the total needed for one unit, by material name.
+     */
+    public List<ProductMaterialResponseDto> explodedBom(String productId) {
+        ProductEntity product = ProductEntity.findById(productId);
+        if (product == null) {
+            throw new NotFoundException("Product not found with id: " + productId);
+        }
+        Map<String, Integer> requirements = requirements(productId);
+        if (requirements.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, String> names = RawMaterialEntity.getEntityManager()
+                .createQuery("select rm.id, rm.name from RawMaterialEntity rm where rm.id in :ids", Object[].class)
+                .setParameter("ids", requirements.keySet())
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (String) row[0], row -> (String) row[1]));
+        return requirements.entrySet().stream()
+                .map(line -> new ProductMaterialResponseDto(
+                        product.getId(),
+                        product.getName(),
+                        line.getKey(),
+                        names.get(line.getKey()),
+                        line.getValue()))
+                .sorted(Comparator.comparing(ProductMaterialResponseDto::rawMaterialName,
+                                Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(ProductMaterialResponseDto::rawMaterialId))
+                .toList();
+    }
+
+    /**
+     * Raw material needed for one unit of the product, keyed by raw
+     * material id; empty for a product without a BOM.
+     *
+     * @throws ClientErrorException 409 if the product contains itself
+     */
+    public Map<String, Integer> requirements(String productId) {
+        lock.lock();
+        try {
+            refresh();
+            return explosion.explode(productId);
+        } catch (BomCycleException e) {
+            throw new ClientErrorException(e.getMessage(), Response.Status.CONFLICT);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Whether the product lists other products as sub-assemblies. */
+    public boolean hasComponents(String productId) {
+        lock.lock();
+        try {
+            refresh();
+            return explosion.hasComponents(productId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The product and every product that uses it as a sub-assembly, at any depth. */
+    public Set<String> ancestorsOf(String productId) {
+        lock.lock();
+        try {
+            refresh();
+            return explosion.ancestorsOf(productId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Observed ahead of the default priority, so a service that re-reads
+     * explosions on the same event ({@link WhereUsedServices}) finds this
+     * one already marked stale.
+     */
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(Interceptor.Priority.APPLICATION)
+                          CatalogChangedEvent event) {
+        switch (event.kind()) {
+            case PRODUCT, BOM_LINE, COMPONENT -> dirtyProducts.add(event.productId());
+            case ALL -> reloadAll.set(true);
+        }
+    }
+
+    /** Applies pending changes; must hold the lock. */
+    private void refresh() {
+        if (reloadAll.getAndSet(false)) {
+            dirtyProducts.clear();
+            Map<String, List<BomLine>> bomByProduct = planningDataLoader.loadAllBomLines().stream()
+                    .collect(Collectors.groupingBy(BomLine::productId));
+            explosion = BomExplosion.of(bomByProduct, planningDataLoader.loadAllComponentLines());
+            return;
+        }
+        for (Iterator<String> it = dirtyProducts.iterator(); it.hasNext(); ) {
+            String productId = it.next();
+            it.remove();
+            explosion.update(productId, planningDataLoader.loadBom(productId),
+                    planningDataLoader.loadComponents(productId));
+        }
+    }
+}
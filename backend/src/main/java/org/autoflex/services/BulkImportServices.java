@@ -0,0 +1,304 @@
+package org.autoflex.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.autoflex.dto.BulkImportResultDto;
+import org.autoflex.dto.BulkRowErrorDto;
+import org.autoflex.dto.ProductMaterialBulkRowDto;
+import org.autoflex.dto.ProductRequestDto;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.ProductMaterialEntity;
+import org.autoflex.entities.ProductMaterialId;
+import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.entities.StockMovementReason;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.mapper.ProductMapper;
+import org.autoflex.mapper.RawMaterialMapper;
+import org.autoflex.metrics.MetricNames;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loading of products, raw materials and BOM lines.
+ *
+ * <p>Rows are validated and written in chunks of {@value #CHUNK_SIZE}, each
+ * chunk in its own transaction so that inserts go out as JDBC batches
+ * ({@code quarkus.hibernate-orm.jdbc.statement-batch-size}). Foreign keys
+ * and existing BOM lines are resolved with one set query per chunk. A bad
+ * row is reported and skipped; it never aborts the rest of the load. If a
+ * chunk fails at the database, it is retried row by row to isolate the
+ * culprit.
+ */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class BulkImportServices {
+
+    static final int CHUNK_SIZE = 500;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ProductMapper productMapper;
+
+    @Inject
+    RawMaterialMapper rawMaterialMapper;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    StockLedgerServices stockLedger;
+
+    @Inject
+    CatalogHistoryServices catalogHistory;
+
+    /** A request row: either a parsed value or the reason it could not be parsed. */
+    public record Row<T>(int row, T value, String error) {
+    }
+
+    private interface ChunkWriter<T> {
+        /** Writes the rows inside the current transaction and returns the rows it rejected. */
+        List<BulkRowErrorDto> write(List<Row<T>> rows);
+    }
+
+    /** Numbers the elements of a JSON array body. */
+    public static <T> Iterator<Row<T>> rows(List<T> values) {
+        Iterator<T> it = values == null ? Collections.emptyIterator() : values.iterator();
+        return new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Row<T> next() {
+                return new Row<>(++row, it.next(), null);
+            }
+        };
+    }
+
+    /**
+     * Lazily parses a newline-delimited JSON body, one row per non-blank
+     * line. A malformed line becomes an error row instead of failing the load.
+     */
+    public <T> Iterator<Row<T>> ndjsonRows(InputStream body, Class<T> type) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return new Iterator<>() {
+            private int row;
+            private String line = advance();
+
+            private String advance() {
+                try {
+                    String next;
+                    do {
+                        next = reader.readLine();
+                    } while (next != null && next.isBlank());
+                    return next;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return line != null;
+            }
+
+            @Override
+            public Row<T> next() {
+                if (line == null) {
+                    throw new NoSuchElementException();
+                }
+                String current = line;
+                line = advance();
+                row++;
+                try {
+                    return new Row<>(row, objectMapper.readValue(current, type), null);
+                } catch (JsonProcessingException e) {
+                    return new Row<>(row, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    public BulkImportResultDto importProducts(Iterator<Row<ProductRequestDto>> rows) {
+        return importRows(rows, chunk -> {
+            chunk.forEach(row -> {
+                ProductEntity entity = productMapper.toEntity(row.value());
+                entity.persist();
+                catalogHistory.productSaved(entity.getId(), entity.getName(), entity.getValue(), true);
+            });
+            return List.of();
+        });
+    }
+
+    public BulkImportResultDto importRawMaterials(Iterator<Row<RawMaterialRequestDto>> rows) {
+        return importRows(rows, chunk -> {
+            chunk.forEach(row -> {
+                RawMaterialEntity entity = rawMaterialMapper.toEntity(row.value());
+                entity.persist();
+                stockLedger.record(entity.getId(), entity.getStockQuantity(), 0, StockMovementReason.CREATE);
+            });
+            return List.of();
+        });
+    }
+
+    /** Inserts new BOM lines and updates the required quantity of existing ones. */
+    public BulkImportResultDto importProductMaterials(Iterator<Row<ProductMaterialBulkRowDto>> rows) {
+        return importRows(rows, this::writeProductMaterials);
+    }
+
+    private List<BulkRowErrorDto> writeProductMaterials(List<Row<ProductMaterialBulkRowDto>> chunk) {
+        EntityManager em = ProductMaterialEntity.getEntityManager();
+
+        Set<String> productIds = chunk.stream().map(r -> r.value().productId()).collect(Collectors.toSet());
+        Set<String> materialIds = chunk.stream().map(r -> r.value().rawMaterialId()).collect(Collectors.toSet());
+
+        // Locked, in id order, before their lines' history versions are closed; see CatalogHistoryServices
+        Set<String> knownProducts = new HashSet<>(em.createQuery(
+                        "select p.id from ProductEntity p where p.id in :ids order by p.id", String.class)
+                .setParameter("ids", productIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList());
+        Set<String> knownMaterials = new HashSet<>(em.createQuery(
+                        "select rm.id from RawMaterialEntity rm where rm.id in :ids", String.class)
+                .setParameter("ids", materialIds)
+                .getResultList());
+
+        Map<ProductMaterialId, ProductMaterialEntity> links = new HashMap<>();
+        em.createQuery("from ProductMaterialEntity pm "
+                        + "where pm.id.productId in :productIds and pm.id.rawMaterialId in :materialIds",
+                        ProductMaterialEntity.class)
+                .setParameter("productIds", productIds)
+                .setParameter("materialIds", materialIds)
+                .getResultList()
+                .forEach(link -> links.put(link.getId(), link));
+
+        List<BulkRowErrorDto> errors = new ArrayList<>();
+        for (Row<ProductMaterialBulkRowDto> row : chunk) {
+            ProductMaterialBulkRowDto dto = row.value();
+            if (!knownProducts.contains(dto.productId())) {
+                errors.add(new BulkRowErrorDto(row.row(), "Product not found with id: " + dto.productId()));
+                continue;
+            }
+            if (!knownMaterials.contains(dto.rawMaterialId())) {
+                errors.add(new BulkRowErrorDto(row.row(), "Raw material not found with id: " + dto.rawMaterialId()));
+                continue;
+            }
+
+            ProductMaterialId id = new ProductMaterialId(dto.productId(), dto.rawMaterialId());
+            ProductMaterialEntity link = links.get(id);
+            catalogHistory.bomLineSaved(dto.productId(), dto.rawMaterialId(), dto.requiredQuantity(), link == null);
+            if (link == null) {
+                link = new ProductMaterialEntity();
+                link.setId(id);
+                link.setProduct(em.getReference(ProductEntity.class, dto.productId()));
+                link.setRawMaterial(em.getReference(RawMaterialEntity.class, dto.rawMaterialId()));
+                link.setRequiredQuantity(dto.requiredQuantity());
+                link.persist();
+                links.put(id, link);
+            } else {
+                link.setRequiredQuantity(dto.requiredQuantity());
+            }
+        }
+        return errors;
+    }
+
+    private <T> BulkImportResultDto importRows(Iterator<Row<T>> rows, ChunkWriter<T> writer) {
+        int received = 0;
+        int imported = 0;
+        List<BulkRowErrorDto> errors = new ArrayList<>();
+
+        List<Row<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (rows.hasNext()) {
+            Row<T> row = rows.next();
+            received++;
+            String error = row.error() != null ? row.error() : validate(row.value());
+            if (error != null) {
+                errors.add(new BulkRowErrorDto(row.row(), error));
+            } else {
+                chunk.add(row);
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                imported += writeChunk(chunk, writer, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += writeChunk(chunk, writer, errors);
+        }
+
+        if (imported > 0) {
+            catalogChanged.fire(CatalogChangedEvent.all());
+        }
+        errors.sort(Comparator.comparingInt(BulkRowErrorDto::row));
+        return new BulkImportResultDto(received, imported, errors);
+    }
+
+    /** @return how many rows of the chunk were written */
+    private <T> int writeChunk(List<Row<T>> chunk, ChunkWriter<T> writer, List<BulkRowErrorDto> errors) {
+        try {
+            List<BulkRowErrorDto> rejected = QuarkusTransaction.requiringNew().call(() -> writer.write(chunk));
+            errors.addAll(rejected);
+            return chunk.size() - rejected.size();
+        } catch (RuntimeException chunkFailure) {
+            // Something in the chunk broke at the database; find out which rows
+            int written = 0;
+            for (Row<T> row : chunk) {
+                try {
+                    List<BulkRowErrorDto> rejected = QuarkusTransaction.requiringNew().call(() -> writer.write(List.of(row)));
+                    errors.addAll(rejected);
+                    written += rejected.isEmpty() ? 1 : 0;
+                } catch (RuntimeException rowFailure) {
+                    errors.add(new BulkRowErrorDto(row.row(), rootMessage(rowFailure)));
+                }
+            }
+            return written;
+        }
+    }
+
+    private <T> String validate(T value) {
+        if (value == null) {
+            return "Row is empty";
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String rootMessage(Throwable failure) {
+        Throwable root = failure;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,47 @@
+package org.autoflex.services;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.ProductMaterialEntity;
+import org.autoflex.entities.ProductMaterialId;
+import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.events.CatalogChangedEvent;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+
+/**
+ * Evicts second-level cache entries named by a {@link CatalogChangedEvent}.
+ *
+ * <p>Hibernate already updates or invalidates the cache for writes it
+ * performs, including bulk HQL. This observer makes the write paths'
+ * intent explicit, so a row the services say has changed is never served
+ * from the cache again, whatever statement changed it. BOM changes also
+ * drop the by-product query region, whose results would otherwise stay
+ * until the next write to {@code product_materials} is noticed.
+ */
+@ApplicationScoped
+public class CatalogCacheInvalidator {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        Cache cache = sessionFactory.getCache();
+        switch (event.kind()) {
+            case PRODUCT -> {
+                cache.evictEntityData(ProductEntity.class, event.productId());
+                cache.evictQueryRegion(ProductMaterialEntity.BOM_BY_PRODUCT_CACHE);
+            }
+            case RAW_MATERIAL -> cache.evictEntityData(RawMaterialEntity.class, event.rawMaterialId());
+            case BOM_LINE -> {
+                cache.evictEntityData(ProductMaterialEntity.class,
+                        new ProductMaterialId(event.productId(), event.rawMaterialId()));
+                cache.evictQueryRegion(ProductMaterialEntity.BOM_BY_PRODUCT_CACHE);
+            }
+            case ALL -> cache.evictAllRegions();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.autoflex.services;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.autoflex.entities.ProductComponentHistoryEntity;
+import org.autoflex.entities.ProductHistoryEntity;
+import org.autoflex.entities.ProductMaterialHistoryEntity;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.ComponentLine;
+import org.autoflex.planning.PlanningProduct;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Versioned history of products, BOM lines and sub-assembly lines, for
+ * planning as of a past moment.
+ *
+ * <p>Each table has a {@code *_history} twin whose rows carry a validity
+ * range {@code [validFrom, validTo)}. The write paths call in here in the
+ * same transaction as the change: the current version, if any, is closed
+ * and the new one opened. Rows are never deleted.
+ *
+ * <p>Callers lock the product's row ({@code PESSIMISTIC_WRITE}) first, for
+ * its own versions and for those of its lines. A second writer of the same
+ * product then waits for the first to commit, and its close sees the
+ * version the first one opened; otherwise both would leave a version open.
+ * Unique indexes on the open versions ({@code V13}) back this up.
+ *
+ * <p>The versions valid at T are read as two index range scans on
+ * {@code (valid_to, valid_from)}: the still-open rows that started by T,
+ * plus the rows closed after T that had started by T. The second part
+ * grows with the changes made since T, not with the length of the history.
+ */
+@ApplicationScoped
+public class CatalogHistoryServices {
+
+    private static final String OPEN_AT = " where h.validTo is null and h.validFrom <= :at";
+    private static final String CLOSED_AFTER = " where h.validTo > :at and h.validFrom <= :at";
+
+    @Inject
+    EntityManager entityManager;
+
+    /** Records the product's new name and value; {@code created} skips closing a previous version. */
+    public void productSaved(String productId, String name, int value, boolean created) {
+        Instant now = now();
+        if (!created) {
+            close("ProductHistoryEntity", "h.productId = :productId", Map.of("productId", productId), now);
+        }
+        entityManager.persist(new ProductHistoryEntity(productId, name, value, now));
+    }
+
+    /** Closes the product together with its BOM and sub-assembly lines, which go with it. */
+    public void productDeleted(String productId) {
+        Instant now = now();
+        Map<String, Object> key = Map.of("productId", productId);
+        close("ProductHistoryEntity", "h.productId = :productId", key, now);
+        close("ProductMaterialHistoryEntity", "h.productId = :productId", key, now);
+        close("ProductComponentHistoryEntity", "h.productId = :productId", key, now);
+    }
+
+    public void bomLineSaved(String productId, String rawMaterialId, int requiredQuantity, boolean created) {
+        Instant now = now();
+        if (!created) {
+            closeBomLine(productId, rawMaterialId, now);
+        }
+        entityManager.persist(new ProductMaterialHistoryEntity(productId, rawMaterialId, requiredQuantity, now));
+    }
+
+    public void bomLineRemoved(String productId, String rawMaterialId) {
+        closeBomLine(productId, rawMaterialId, now());
+    }
+
+    public void componentSaved(String productId, String componentId, int requiredQuantity, boolean created) {
+        Instant now = now();
+        if (!created) {
+            closeComponent(productId, componentId, now);
+        }
+        entityManager.persist(new ProductComponentHistoryEntity(productId, componentId, requiredQuantity, now));
+    }
+
+    public void componentRemoved(String productId, String componentId) {
+        closeComponent(productId, componentId, now());
+    }
+
+    /** Products as they were at {@code at}, in id order. */
+    public List<PlanningProduct> productsAt(Instant at) {
+        List<PlanningProduct> products = validAt("select new org.autoflex.planning.PlanningProduct("
+                + "h.productId, h.name, h.value) from ProductHistoryEntity h", PlanningProduct.class, at);
+        products.sort(Comparator.comparing(PlanningProduct::id));
+        return products;
+    }
+
+    /** Raw-material BOM lines as they were at {@code at}, keyed by product id. */
+    public Map<String, List<BomLine>> bomAt(Instant at) {
+        Map<String, List<BomLine>> bomByProduct = new HashMap<>();
+        validAt("select new org.autoflex.planning.BomLine(h.productId, h.rawMaterialId, h.requiredQuantity) "
+                + "from ProductMaterialHistoryEntity h", BomLine.class, at)
+                .forEach(line -> bomByProduct
+                        .computeIfAbsent(line.productId(), k -> new ArrayList<>())
+                        .add(line));
+        return bomByProduct;
+    }
+
+    /** Sub-assembly lines as they were at {@code at}. */
+    public List<ComponentLine> componentLinesAt(Instant at) {
+        return validAt("select new org.autoflex.planning.ComponentLine(h.productId, h.componentId, "
+                + "h.requiredQuantity) from ProductComponentHistoryEntity h", ComponentLine.class, at);
+    }
+
+    private <T> List<T> validAt(String select, Class<T> type, Instant at) {
+        List<T> rows = new ArrayList<>(entityManager.createQuery(select + OPEN_AT, type)
+                .setParameter("at", at)
+                .getResultList());
+        rows.addAll(entityManager.createQuery(select + CLOSED_AFTER, type)
+                .setParameter("at", at)
+                .getResultList());
+        return rows;
+    }
+
+    private void closeBomLine(String productId, String rawMaterialId, Instant now) {
+        close("ProductMaterialHistoryEntity", "h.productId = :productId and h.rawMaterialId = :rawMaterialId",
+                Map.of("productId", productId, "rawMaterialId", rawMaterialId), now);
+    }
+
+    private void closeComponent(String productId, String componentId, Instant now) {
+        close("ProductComponentHistoryEntity", "h.productId = :productId and h.componentId = :componentId",
+                Map.of("productId", productId, "componentId", componentId), now);
+    }
+
+    private void close(String entity, String key, Map<String, Object> parameters, Instant now) {
+        var update = entityManager.createQuery("update " + entity + " h set h.validTo = :now "
+                + "where " + key + " and h.validTo is null");
+        parameters.forEach(update::setParameter);
+        update.setParameter("now", now).executeUpdate();
+    }
+
+    /** Stored with microsecond precision; truncate so reads compare like for like. */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
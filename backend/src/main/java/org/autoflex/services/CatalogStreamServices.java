@@ -0,0 +1,140 @@
+package org.autoflex.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.autoflex.dto.CatalogUpdateDto;
+import org.autoflex.dto.ProductionResultDto;
+import org.autoflex.dto.StockLevelDto;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.planning.GreedyPlanner;
+import org.autoflex.planning.PlanSnapshot;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stock and production-suggestion changes to every subscriber of
+ * the catalog stream.
+ *
+ * <p>Changes are coalesced: the first {@link CatalogChangedEvent} after a
+ * quiet period arms a timer, and everything that arrives until it fires is
+ * published as one {@link CatalogUpdateDto}. However many writes land in a
+ * window, the plan is recomputed at most once. The work runs on a worker
+ * thread; delivery to subscribers is non-blocking, so connections cost no
+ * thread each. Nothing is computed while nobody is listening.
+ */
+@ApplicationScoped
+public class CatalogStreamServices {
+
+    private static final Logger LOG = Logger.getLogger(CatalogStreamServices.class);
+
+    /** Messages a slow subscriber may fall behind by before it is disconnected. */
+    private static final int SUBSCRIBER_BUFFER = 64;
+
+    @Inject
+    ProductionServices productionServices;
+
+    @Inject
+    StockMovementServices stockMovementServices;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "autoflex.stream.debounce", defaultValue = "250ms")
+    Duration debounce;
+
+    private final BroadcastProcessor<CatalogUpdateDto> processor = BroadcastProcessor.create();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final Set<String> dirtyMaterials = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Guarded by this
+    private ProductionResultDto lastSuggestion;
+
+    @PostConstruct
+    void initMetrics() {
+        registry.gauge("autoflex.stream.subscribers", subscribers);
+    }
+
+    /** A live feed of catalog updates, starting with the next change. */
+    public Multi<CatalogUpdateDto> updates() {
+        return processor
+                .onOverflow().buffer(SUBSCRIBER_BUFFER)
+                .onSubscription().invoke(subscribers::incrementAndGet)
+                .onTermination().invoke(subscribers::decrementAndGet);
+    }
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        if (event.kind() == CatalogChangedEvent.Kind.RAW_MATERIAL) {
+            dirtyMaterials.add(event.rawMaterialId());
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            vertx.setTimer(Math.max(1, debounce.toMillis()),
+                    timer -> vertx.executeBlocking(() -> {
+                        flush();
+                        return null;
+                    }, false));
+        }
+    }
+
+    private synchronized void flush() {
+        // Re-arm first, so a change arriving while this runs gets its own window
+        flushScheduled.set(false);
+        Set<String> materials = drain(dirtyMaterials);
+        if (subscribers.get() == 0) {
+            lastSuggestion = null;
+            return;
+        }
+
+        try {
+            CatalogUpdateDto update = QuarkusTransaction.requiringNew().call(() -> {
+                List<StockLevelDto> stock = materials.isEmpty()
+                        ? List.of()
+                        : stockMovementServices.findStock(materials);
+                PlanSnapshot snapshot = productionServices.suggestProduction(GreedyPlanner.NAME);
+                ProductionResultDto suggestion = Objects.equals(snapshot.result(), lastSuggestion)
+                        ? null
+                        : snapshot.result();
+                return new CatalogUpdateDto(snapshot.version(), stock, suggestion);
+            });
+            if (update.suggestion() != null) {
+                lastSuggestion = update.suggestion();
+            }
+            if (!update.stock().isEmpty() || update.suggestion() != null) {
+                processor.onNext(update);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not publish catalog update", e);
+        }
+    }
+
+    private static Set<String> drain(Set<String> dirty) {
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+}
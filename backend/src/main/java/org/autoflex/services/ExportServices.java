@@ -0,0 +1,103 @@
+package org.autoflex.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.autoflex.dto.ProductMaterialResponseDto;
+import org.autoflex.dto.ProductResponseDto;
+import org.autoflex.dto.RawMaterialResponseDto;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.metrics.MetricNames;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.SelectionQuery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams whole tables as newline-delimited JSON.
+ *
+ * <p>Rows are read through a forward-only server-side cursor and written as
+ * they arrive, so memory use does not grow with table size and the first
+ * line goes out before the query has finished. The queries select DTOs
+ * directly, so nothing accumulates in the persistence context.
+ */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class ExportServices {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    /** Rows fetched per round trip, and rows written between flushes. */
+    private static final int FETCH_SIZE = 500;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Transactional
+    public void exportProducts(OutputStream out) throws IOException {
+        stream(out, session().createSelectionQuery(
+                "select new org.autoflex.dto.ProductResponseDto(p.id, p.name, p.value) "
+                        + "from ProductEntity p order by p.id",
+                ProductResponseDto.class));
+    }
+
+    @Transactional
+    public void exportRawMaterials(OutputStream out) throws IOException {
+        stream(out, session().createSelectionQuery(
+                "select new org.autoflex.dto.RawMaterialResponseDto(rm.id, rm.name, rm.stockQuantity) "
+                        + "from RawMaterialEntity rm order by rm.id",
+                RawMaterialResponseDto.class));
+    }
+
+    /** Streams the BOM lines of one product, or of every product when {@code productId} is {@code null}. */
+    @Transactional
+    public void exportProductMaterials(String productId, OutputStream out) throws IOException {
+        String hql = "select new org.autoflex.dto.ProductMaterialResponseDto("
+                + "p.id, p.name, rm.id, rm.name, pm.requiredQuantity) "
+                + "from ProductMaterialEntity pm join pm.product p join pm.rawMaterial rm"
+                + (productId == null ? "" : " where p.id = :productId")
+                + " order by p.id, rm.id";
+        SelectionQuery<ProductMaterialResponseDto> query =
+                session().createSelectionQuery(hql, ProductMaterialResponseDto.class);
+        if (productId != null) {
+            query.setParameter("productId", productId);
+        }
+        stream(out, query);
+    }
+
+    private Session session() {
+        return ProductEntity.getEntityManager().unwrap(Session.class);
+    }
+
+    private <T> void stream(OutputStream out, SelectionQuery<T> query) throws IOException {
+        // Flushing is done per chunk below, not per row
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        try (ScrollableResults<T> rows = query
+                .setFetchSize(FETCH_SIZE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            long count = 0;
+            while (rows.next()) {
+                writer.writeValue(generator, rows.get());
+                generator.writeRaw('\n');
+                if (++count == 1 || count % FETCH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,210 @@
+package org.autoflex.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.ws.rs.BadRequestException;
+import org.autoflex.dto.PageDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over an entity with a string {@code id}.
+ *
+ * <p>Pages are ordered by {@code id} or by {@code name} with {@code id} as
+ * tie-breaker, and the next page starts strictly after the last row seen
+ * instead of at an offset. Only the requested columns are selected, so no
+ * entity is ever hydrated.
+ *
+ * <p>Derived fields are integer columns of another table joined to the
+ * entity, such as a materialized figure; they can be selected, sorted on
+ * and filtered with a lower bound like any other field. The join is only
+ * made when a page uses one.
+ */
+final class KeysetPager {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+
+    private static final Set<String> SORTABLE = Set.of("id", "name");
+    private static final String SEPARATOR = "\n";
+
+    private final String entityName;
+    private final String joins;
+    private final List<String> fields;
+    private final Map<String, String> derived;
+
+    /**
+     * @param entityName HQL entity name, e.g. {@code ProductEntity}
+     * @param fields     selectable attributes in output order; must contain {@code id} and {@code name}
+     */
+    KeysetPager(String entityName, List<String> fields) {
+        this(entityName, "", fields, Map.of());
+    }
+
+    /**
+     * @param joins   HQL joins from the entity, aliased {@code e}, to the tables of the derived fields
+     * @param derived integer-valued HQL expression of each derived field, by field name
+     */
+    KeysetPager(String entityName, String joins, List<String> fields, Map<String, String> derived) {
+        this.entityName = entityName;
+        this.joins = joins;
+        this.fields = fields;
+        this.derived = derived;
+    }
+
+    /**
+     * Parses a {@code fields=} parameter into the selected attributes,
+     * in canonical order. {@code null} selects every field.
+     */
+    List<String> parseFields(String fieldsParam) {
+        if (fieldsParam == null || fieldsParam.isBlank()) {
+            return fields;
+        }
+        Set<String> requested = new HashSet<>();
+        for (String field : fieldsParam.split(",")) {
+            String name = field.trim();
+            if (!fields.contains(name)) {
+                throw new BadRequestException("Unknown field: " + name);
+            }
+            requested.add(name);
+        }
+        return fields.stream().filter(requested::contains).toList();
+    }
+
+    /** Maps a row to a map holding only the selected fields. */
+    static Function<Tuple, Map<String, Object>> toMap(List<String> selected) {
+        return row -> {
+            Map<String, Object> map = new LinkedHashMap<>();
+            selected.forEach(field -> map.put(field, row.get(field)));
+            return map;
+        };
+    }
+
+    <T> PageDto<T> page(EntityManager em, String cursor, Integer limit, String sort,
+            List<String> selected, Function<Tuple, T> rowMapper) {
+        return page(em, cursor, limit, sort, selected, Map.of(), rowMapper);
+    }
+
+    /** @param atLeast lower bound per derived field; rows below it are skipped */
+    <T> PageDto<T> page(EntityManager em, String cursor, Integer limit, String sort,
+            List<String> selected, Map<String, Integer> atLeast, Function<Tuple, T> rowMapper) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1) {
+            throw new BadRequestException("limit must be at least 1");
+        }
+        pageSize = Math.min(pageSize, MAX_LIMIT);
+
+        String sortSpec = sort == null || sort.isBlank() ? "id" : sort.trim();
+        boolean descending = sortSpec.startsWith("-");
+        String sortField = descending ? sortSpec.substring(1) : sortSpec;
+        if (!SORTABLE.contains(sortField) && !derived.containsKey(sortField)) {
+            throw new BadRequestException("Cannot sort by: " + sortField);
+        }
+
+        Set<String> columns = new LinkedHashSet<>(selected);
+        columns.add("id");
+        columns.add(sortField);
+
+        StringBuilder hql = new StringBuilder("select ");
+        StringJoiner select = new StringJoiner(", ");
+        columns.forEach(column -> select.add(expression(column) + " as " + column));
+        hql.append(select).append(" from ").append(entityName).append(" e");
+        if (!atLeast.isEmpty() || columns.stream().anyMatch(derived::containsKey)) {
+            hql.append(' ').append(joins);
+        }
+
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        atLeast.keySet().forEach(field -> {
+            if (!derived.containsKey(field)) {
+                throw new BadRequestException("Cannot filter on: " + field);
+            }
+            where.add(derived.get(field) + " >= :min_" + field);
+        });
+
+        String[] after = decodeCursor(cursor, sortSpec);
+        String op = descending ? "<" : ">";
+        String sortExpression = expression(sortField);
+        if (after != null) {
+            if (sortField.equals("id")) {
+                where.add("e.id " + op + " :lastId");
+            } else {
+                where.add("(" + sortExpression + ' ' + op + " :lastValue"
+                        + " or (" + sortExpression + " = :lastValue and e.id " + op + " :lastId))");
+            }
+        }
+        hql.append(where);
+        String direction = descending ? " desc" : " asc";
+        hql.append(" order by ").append(sortExpression).append(direction);
+        if (!sortField.equals("id")) {
+            hql.append(", e.id").append(direction);
+        }
+
+        TypedQuery<Tuple> query = em.createQuery(hql.toString(), Tuple.class)
+                .setMaxResults(pageSize + 1);
+        atLeast.forEach((field, minimum) -> query.setParameter("min_" + field, minimum));
+        if (after != null) {
+            query.setParameter("lastId", after[1]);
+            if (!sortField.equals("id")) {
+                query.setParameter("lastValue", cursorValue(sortField, after[0]));
+            }
+        }
+        List<Tuple> rows = query.getResultList();
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Tuple last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(sortSpec, String.valueOf(last.get(sortField)), (String) last.get("id"));
+        }
+
+        return new PageDto<>(rows.stream().map(rowMapper).toList(), nextCursor);
+    }
+
+    private String expression(String field) {
+        return derived.getOrDefault(field, "e." + field);
+    }
+
+    private Object cursorValue(String sortField, String value) {
+        if (!derived.containsKey(sortField)) {
+            return value;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static String encodeCursor(String sortSpec, String lastValue, String lastId) {
+        String raw = sortSpec + SEPARATOR + lastValue + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return {@code [lastValue, lastId]}, or {@code null} for the first page */
+    private static String[] decodeCursor(String cursor, String sortSpec) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        // Names may contain anything, so split on the first and last separator only
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        String cursorSort = raw.substring(0, first);
+        if (!cursorSort.equals(sortSpec)) {
+            throw new BadRequestException("Cursor was issued for sort=" + cursorSort);
+        }
+        return new String[]{raw.substring(first + 1, last), raw.substring(last + 1)};
+    }
+}
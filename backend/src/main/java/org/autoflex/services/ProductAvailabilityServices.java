@@ -0,0 +1,156 @@
+package org.autoflex.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.ClientErrorException;
+import org.autoflex.entities.ProductAvailabilityEntity;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.events.CatalogVersions;
+import org.autoflex.metrics.MetricNames;
+import org.autoflex.planning.MaterialInfo;
+import org.autoflex.planning.PlanningDataLoader;
+import org.autoflex.planning.PlanningProduct;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps {@code product_availability} current: how many units of each
+ * product available stock allows, {@code min((stock - reserved) / required)}
+ * over its exploded BOM.
+ *
+ * <p>On PostgreSQL and Oracle it is a materialized view (V9) computed by the
+ * database in one aggregate query, nested BOMs included. Stock, BOM and
+ * product changes are coalesced like the catalog stream: the first
+ * {@link CatalogChangedEvent} arms a timer, and one refresh covers
+ * everything that committed until it fires. Readers keep seeing the
+ * previous figures while it runs. Databases without materialized views
+ * (H2 in the tests) get a plain table that this service refills with the
+ * same figures.
+ */
+@ApplicationScoped
+public class ProductAvailabilityServices {
+
+    private static final Logger LOG = Logger.getLogger(ProductAvailabilityServices.class);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    PlanningDataLoader planningDataLoader;
+
+    @Inject
+    BomExplosionServices bomExplosionServices;
+
+    @Inject
+    CatalogVersions catalogVersions;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "autoflex.availability.refresh-delay", defaultValue = "1s")
+    Duration refreshDelay;
+
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    /** Keeps refreshes from overlapping when one outlasts the delay. */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    void onStart(@Observes StartupEvent event) {
+        // Another instance may have moved stock while this one was down
+        scheduleRefresh();
+    }
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            vertx.setTimer(Math.max(1, refreshDelay.toMillis()),
+                    timer -> vertx.executeBlocking(() -> {
+                        refresh();
+                        return null;
+                    }, false));
+        }
+    }
+
+    private void refresh() {
+        refreshLock.lock();
+        // Re-arm first, so a change committing during the refresh gets its own
+        refreshScheduled.set(false);
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                switch (dbKind) {
+                    case "postgresql" -> execute("refresh materialized view concurrently product_availability");
+                    case "oracle" -> execute("begin dbms_mview.refresh('PRODUCT_AVAILABILITY', method => 'C', "
+                            + "atomic_refresh => true); end;");
+                    default -> refill();
+                }
+            });
+            catalogVersions.bump(CatalogTable.PRODUCT_AVAILABILITY);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not refresh product availability", e);
+        } finally {
+            sample.stop(Timer.builder(MetricNames.AVAILABILITY_REFRESH)
+                    .description("Time spent refreshing product_availability")
+                    .register(registry));
+            refreshLock.unlock();
+        }
+    }
+
+    private void execute(String sql) {
+        // Only this view is touched, so leave the second-level cache alone
+        entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(ProductAvailabilityEntity.TABLE)
+                .executeUpdate();
+    }
+
+    /** Same figures as the view, for databases without one. */
+    private void refill() {
+        Map<String, Integer> available = new HashMap<>();
+        for (MaterialInfo material : planningDataLoader.loadMaterials()) {
+            available.put(material.id(), Math.max(0, material.availableQuantity()));
+        }
+        List<PlanningProduct> products = planningDataLoader.loadProducts();
+
+        ProductAvailabilityEntity.deleteAll();
+        for (PlanningProduct product : products) {
+            Map<String, Integer> requirements;
+            try {
+                requirements = bomExplosionServices.requirements(product.id());
+            } catch (ClientErrorException e) {
+                // A cycle: never producible
+                requirements = Map.of();
+            }
+            long units = requirements.isEmpty() ? 0 : Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> line : requirements.entrySet()) {
+                units = Math.min(units, available.getOrDefault(line.getKey(), 0) / line.getValue());
+            }
+            new ProductAvailabilityEntity(product.id(), (int) units).persist();
+        }
+    }
+}
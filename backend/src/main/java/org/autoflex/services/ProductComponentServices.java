@@ -0,0 +1,130 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.ProductComponentRequestDto;
+import org.autoflex.dto.ProductComponentResponseDto;
+import org.autoflex.entities.ProductComponentEntity;
+import org.autoflex.entities.ProductComponentId;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Sub-assembly lines: products used in the BOM of other products. */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class ProductComponentServices {
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    CatalogHistoryServices catalogHistory;
+
+    /**
+     * Use a product as a sub-assembly of another (or update the required
+     * quantity). Rejected with 409 if the component already contains the
+     * product, directly or through its own sub-assemblies.
+     */
+    @Transactional
+    public ProductComponentResponseDto addComponent(String productId, ProductComponentRequestDto request) {
+        // Locked before any of its history versions is closed; see CatalogHistoryServices
+        ProductEntity product = ProductEntity.findById(productId, LockModeType.PESSIMISTIC_WRITE);
+        if (product == null) {
+            throw new NotFoundException("Product not found with id: " + productId);
+        }
+
+        ProductEntity component = ProductEntity.findById(request.componentId());
+        if (component == null) {
+            throw new NotFoundException("Component product not found with id: " + request.componentId());
+        }
+
+        if (contains(request.componentId(), productId)) {
+            throw new ClientErrorException("Product " + request.componentId() + " already contains product "
+                    + productId + "; using it as a component would create a cycle", Response.Status.CONFLICT);
+        }
+
+        ProductComponentId id = new ProductComponentId(productId, request.componentId());
+
+        // Upsert: update if already linked, otherwise create
+        ProductComponentEntity link = ProductComponentEntity.findById(id);
+        catalogHistory.componentSaved(productId, request.componentId(), request.requiredQuantity(), link == null);
+        if (link == null) {
+            link = new ProductComponentEntity(id, product, component, request.requiredQuantity());
+            link.persist();
+        } else {
+            link.setRequiredQuantity(request.requiredQuantity());
+        }
+
+        catalogChanged.fire(CatalogChangedEvent.component(productId));
+        return new ProductComponentResponseDto(product.getId(), product.getName(),
+                component.getId(), component.getName(), link.getRequiredQuantity());
+    }
+
+    /** List the sub-assemblies of a product, by component name. */
+    public List<ProductComponentResponseDto> listByProduct(String productId) {
+        if (ProductEntity.findById(productId) == null) {
+            throw new NotFoundException("Product not found with id: " + productId);
+        }
+        return ProductComponentEntity.getEntityManager()
+                .createQuery("select new org.autoflex.dto.ProductComponentResponseDto("
+                                + "p.id, p.name, c.id, c.name, pc.requiredQuantity) "
+                                + "from ProductComponentEntity pc join pc.product p join pc.component c "
+                                + "where pc.id.productId = :productId order by c.name, c.id",
+                        ProductComponentResponseDto.class)
+                .setParameter("productId", productId)
+                .getResultList();
+    }
+
+    /** Stop using a product as a sub-assembly of another. */
+    @Transactional
+    public void removeComponent(String productId, String componentId) {
+        ProductEntity.findById(productId, LockModeType.PESSIMISTIC_WRITE);
+        ProductComponentEntity link = ProductComponentEntity.findById(new ProductComponentId(productId, componentId));
+        if (link == null) {
+            throw new NotFoundException(
+                    "Component " + componentId + " not found in product " + productId);
+        }
+        link.delete();
+        catalogHistory.componentRemoved(productId, componentId);
+        catalogChanged.fire(CatalogChangedEvent.component(productId));
+    }
+
+    /**
+     * Whether {@code target} is {@code assemblyId} or one of its
+     * sub-assemblies at any depth. Walks down one level per query.
+     */
+    private boolean contains(String assemblyId, String target) {
+        Set<String> seen = new HashSet<>(List.of(assemblyId));
+        List<String> level = List.of(assemblyId);
+        while (!level.isEmpty()) {
+            if (level.contains(target)) {
+                return true;
+            }
+            List<String> next = new ArrayList<>();
+            for (String componentId : ProductComponentEntity.getEntityManager()
+                    .createQuery("select pc.id.componentId from ProductComponentEntity pc "
+                            + "where pc.id.productId in :ids", String.class)
+                    .setParameter("ids", level)
+                    .getResultList()) {
+                if (seen.add(componentId)) {
+                    next.add(componentId);
+                }
+            }
+            level = next;
+        }
+        return false;
+    }
+}
@@ -1,7 +1,12 @@
 package org.autoflex.services;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
 import org.autoflex.dto.ProductMaterialRequestDto;
 import org.autoflex.dto.ProductMaterialResponseDto;
@@ -9,17 +14,44 @@ import org.autoflex.entities.ProductEntity;
 import org.autoflex.entities.ProductMaterialEntity;
 import org.autoflex.entities.ProductMaterialId;
 import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Arrays;
 import java.util.List;
 
 @ApplicationScoped
+@Timed(MetricNames.SERVICE)
 public class ProductMaterialServices {
 
+    /**
+     * BOM lines as DTOs in one query. Filtering on the link's own key
+     * columns lets the covering indexes of {@code product_materials}
+     * answer the lookup; the joins only add the two names.
+     */
+    private static final String BOM_LINES = "select new org.autoflex.dto.ProductMaterialResponseDto("
+            + "p.id, p.name, rm.id, rm.name, pm.requiredQuantity) "
+            + "from ProductMaterialEntity pm join pm.product p join pm.rawMaterial rm ";
+
+    /** Orders batch reads product by product, then like a single BOM. */
+    private static final String BATCH_ORDER = "order by p.name, p.id, rm.name, rm.id";
+
+    /** Upper bound on ids per batch read; Oracle takes at most 1000 values in an IN list. */
+    public static final int MAX_BATCH_PRODUCTS = 1000;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    CatalogHistoryServices catalogHistory;
+
     /** Associate a raw material to a product (or update the required quantity). */
     @Transactional
     public ProductMaterialResponseDto addMaterial(String productId,
             ProductMaterialRequestDto request) {
-        ProductEntity product = ProductEntity.findById(productId);
+        // Locked before any of its history versions is closed; see CatalogHistoryServices
+        ProductEntity product = ProductEntity.findById(productId, LockModeType.PESSIMISTIC_WRITE);
         if (product == null) {
             throw new NotFoundException("Product not found with id: " + productId);
         }
@@ -33,6 +65,7 @@ public class ProductMaterialServices {
 
         // Upsert: update if already linked, otherwise create
         ProductMaterialEntity link = ProductMaterialEntity.findById(id);
+        catalogHistory.bomLineSaved(productId, request.rawMaterialId(), request.requiredQuantity(), link == null);
         if (link == null) {
             link = new ProductMaterialEntity();
             link.setId(id);
@@ -46,6 +79,7 @@ public class ProductMaterialServices {
             link.setRequiredQuantity(request.requiredQuantity());
         }
 
+        catalogChanged.fire(CatalogChangedEvent.bomLine(productId, request.rawMaterialId()));
         return toResponse(link);
     }
 
@@ -54,15 +88,76 @@ public class ProductMaterialServices {
         if (ProductEntity.findById(productId) == null) {
             throw new NotFoundException("Product not found with id: " + productId);
         }
-        return ProductMaterialEntity.<ProductMaterialEntity>find("product.id", productId)
-                .stream()
-                .map(this::toResponse)
+        return ProductMaterialEntity.getEntityManager()
+                .createQuery(BOM_LINES + "where pm.id.productId = :productId order by rm.name, rm.id",
+                        ProductMaterialResponseDto.class)
+                .setParameter("productId", productId)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, ProductMaterialEntity.BOM_BY_PRODUCT_CACHE)
+                .getResultList();
+    }
+
+    /**
+     * Where-used from the database: every product whose BOM contains the
+     * raw material, through the reverse index on {@code raw_material_id}.
+     */
+    public List<ProductMaterialResponseDto> listByRawMaterial(String rawMaterialId) {
+        if (RawMaterialEntity.findById(rawMaterialId) == null) {
+            throw new NotFoundException("Raw material not found with id: " + rawMaterialId);
+        }
+        return ProductMaterialEntity.getEntityManager()
+                .createQuery(BOM_LINES + "where pm.id.rawMaterialId = :rawMaterialId order by p.name, p.id",
+                        ProductMaterialResponseDto.class)
+                .setParameter("rawMaterialId", rawMaterialId)
+                .getResultList();
+    }
+
+    /**
+     * BOM lines of many products, or of every product when
+     * {@code productIds} is {@code null}, in one query ordered by product.
+     * Ids without a product or without lines simply contribute none, so
+     * there is no per-id existence check.
+     */
+    public List<ProductMaterialResponseDto> listByProducts(List<String> productIds) {
+        if (productIds == null) {
+            return ProductMaterialEntity.getEntityManager()
+                    .createQuery(BOM_LINES + BATCH_ORDER, ProductMaterialResponseDto.class)
+                    .getResultList();
+        }
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return ProductMaterialEntity.getEntityManager()
+                .createQuery(BOM_LINES + "where pm.id.productId in :productIds " + BATCH_ORDER,
+                        ProductMaterialResponseDto.class)
+                .setParameter("productIds", productIds)
+                .getResultList();
+    }
+
+    /**
+     * Parses a comma-separated {@code ids} parameter: {@code null} stays
+     * {@code null} (every product), blanks and repeats are dropped. 400
+     * beyond {@value #MAX_BATCH_PRODUCTS} ids.
+     */
+    public static List<String> parseProductIds(String ids) {
+        if (ids == null) {
+            return null;
+        }
+        List<String> productIds = Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
                 .toList();
+        if (productIds.size() > MAX_BATCH_PRODUCTS) {
+            throw new BadRequestException("At most " + MAX_BATCH_PRODUCTS + " product ids per request");
+        }
+        return productIds;
     }
 
     /** Remove the link between a product and a specific raw material. */
     @Transactional
     public void removeMaterial(String productId, String rawMaterialId) {
+        ProductEntity.findById(productId, LockModeType.PESSIMISTIC_WRITE);
         ProductMaterialId id = new ProductMaterialId(productId, rawMaterialId);
         ProductMaterialEntity link = ProductMaterialEntity.findById(id);
         if (link == null) {
@@ -71,6 +166,8 @@ public class ProductMaterialServices {
                             " and raw material " + rawMaterialId);
         }
         link.delete();
+        catalogHistory.bomLineRemoved(productId, rawMaterialId);
+        catalogChanged.fire(CatalogChangedEvent.bomLine(productId, rawMaterialId));
     }
 
     private ProductMaterialResponseDto toResponse(ProductMaterialEntity e) {
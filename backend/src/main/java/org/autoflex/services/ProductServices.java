@@ -1,27 +1,54 @@
 package org.autoflex.services;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.PageDto;
 import org.autoflex.dto.ProductRequestDto;
 import org.autoflex.dto.ProductResponseDto;
+import org.autoflex.entities.ProductComponentEntity;
 import org.autoflex.entities.ProductEntity;
+import org.autoflex.events.CatalogChangedEvent;
 import org.autoflex.entities.ProductMaterialEntity;
 import org.autoflex.mapper.ProductMapper;
+import org.autoflex.metrics.MetricNames;
 
 import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
+@Timed(MetricNames.SERVICE)
 public class ProductServices {
 
     @Inject
     ProductMapper mapper;
 
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    CatalogHistoryServices catalogHistory;
+
+    /** Page shape without {@code fields}; {@code maxUnits} is only returned when asked for. */
+    private static final List<String> DEFAULT_FIELDS = List.of("id", "name", "value");
+
+    private final KeysetPager pager = new KeysetPager("ProductEntity",
+            "left join ProductAvailabilityEntity a on a.productId = e.id",
+            List.of("id", "name", "value", "maxUnits"),
+            Map.of("maxUnits", "coalesce(a.maxUnits, 0)"));
+
     @Transactional
     public ProductResponseDto create(ProductRequestDto request) {
         ProductEntity entity = mapper.toEntity(request);
         entity.persist();
+        catalogHistory.productSaved(entity.getId(), entity.getName(), entity.getValue(), true);
+        catalogChanged.fire(CatalogChangedEvent.product(entity.getId()));
         return mapper.toResponse(entity);
     }
 
@@ -32,6 +59,27 @@ public class ProductServices {
                 .toList();
     }
 
+    /**
+     * Keyset-paginated listing. Without {@code fields} the rows have the
+     * usual {@link ProductResponseDto} shape; otherwise only the requested columns
+     * are selected and returned. {@code maxUnits} can be sorted on, and
+     * {@code minUnits} keeps only products with at least that many; it is
+     * returned only when listed in {@code fields}.
+     */
+    public PageDto<?> findPage(String cursor, Integer limit, String sort, String fields, Integer minUnits) {
+        List<String> selected = fields == null ? DEFAULT_FIELDS : pager.parseFields(fields);
+        Map<String, Integer> atLeast = minUnits == null ? Map.of() : Map.of("maxUnits", minUnits);
+        if (fields == null) {
+            return pager.page(ProductEntity.getEntityManager(), cursor, limit, sort, selected, atLeast,
+                    row -> new ProductResponseDto(
+                        row.get("id", String.class),
+                        row.get("name", String.class),
+                        row.get("value", Integer.class)));
+        }
+        return pager.page(ProductEntity.getEntityManager(), cursor, limit, sort, selected, atLeast,
+                KeysetPager.toMap(selected));
+    }
+
     public ProductResponseDto findById(String id) {
         ProductEntity entity = ProductEntity.findById(id);
         if (entity == null) {
@@ -42,23 +90,35 @@ public class ProductServices {
 
     @Transactional
     public ProductResponseDto update(String id, ProductRequestDto request) {
-        ProductEntity entity = ProductEntity.findById(id);
+        // Locked before its history version is closed; see CatalogHistoryServices
+        ProductEntity entity = ProductEntity.findById(id, LockModeType.PESSIMISTIC_WRITE);
         if (entity == null) {
             throw new NotFoundException("Product not found with id: " + id);
         }
         entity.setName(request.name());
         entity.setValue(request.value());
+        catalogHistory.productSaved(id, entity.getName(), entity.getValue(), false);
+        catalogChanged.fire(CatalogChangedEvent.product(id));
         return mapper.toResponse(entity);
     }
 
+    /** Deletes the product with its BOM; 409 while other products use it as a sub-assembly. */
     @Transactional
     public void delete(String id) {
-        ProductEntity product = ProductEntity.findById(id);
+        ProductEntity product = ProductEntity.findById(id, LockModeType.PESSIMISTIC_WRITE);
         if (product == null) {
             throw new NotFoundException("Product not found with id: " + id);
         }
+        long assemblies = ProductComponentEntity.count("id.componentId", id);
+        if (assemblies > 0) {
+            throw new ClientErrorException("Product " + id + " is a component of " + assemblies
+                    + " other product(s)", Response.Status.CONFLICT);
+        }
 
         ProductMaterialEntity.delete("id.productId", id);
+        ProductComponentEntity.delete("id.productId", id);
         product.delete();
+        catalogHistory.productDeleted(id);
+        catalogChanged.fire(CatalogChangedEvent.product(id));
     }
 }
@@ -1,78 +1,410 @@
 package org.autoflex.services;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import org.autoflex.dto.PriceOverrideDto;
 import org.autoflex.dto.ProductionResultDto;
 import org.autoflex.dto.ProductionSuggestionDto;
-import org.autoflex.entities.ProductEntity;
-import org.autoflex.entities.ProductMaterialEntity;
-import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.dto.ScenarioRequestDto;
+import org.autoflex.dto.ScenarioResultDto;
+import org.autoflex.dto.StockOverrideDto;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.autoflex.planning.BomCycleException;
+import org.autoflex.planning.BomExplosion;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.CompactPlanningModel;
+import org.autoflex.planning.PlanSnapshot;
+import org.autoflex.planning.PlanningDataLoader;
+import org.autoflex.planning.PlanningModel;
+import org.autoflex.planning.PlanningProduct;
+import org.autoflex.planning.ProductionPlanner;
+import org.autoflex.planning.ScenarioSnapshot;
+import org.jboss.logging.Logger;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 
+/**
+ * Serves production suggestions from an in-memory cache.
+ *
+ * <p>The planning model is loaded once and then patched from
+ * {@link CatalogChangedEvent}s: only the products and materials named by an
+ * event are re-read. Cached plans are dropped only when a change reaches a
+ * product that has a BOM; edits to unused materials or BOM-less products
+ * keep the current plans and just re-stamp them with the new version.
+ *
+ * <p>Products with sub-assemblies are planned against their exploded BOM
+ * (see {@link BomExplosion}). A change to a sub-assembly re-explodes only
+ * the products above it; every other explosion stays memoized.
+ */
 @ApplicationScoped
+@Timed(MetricNames.SERVICE)
 public class ProductionServices {
 
-     public ProductionResultDto suggestProduction() {
+     private static final Logger LOG = Logger.getLogger(ProductionServices.class);
 
-          Map<String, Integer> availableStock = buildStockMap();
+     /** Upper bound on scenarios per what-if request. */
+     public static final int MAX_SCENARIOS = 100;
 
-          List<ProductEntity> products = ProductEntity.<ProductEntity>listAll()
-                    .stream()
-                    .sorted(Comparator.comparingInt(ProductEntity::getValue).reversed())
-                    .toList();
+     @Inject
+     PlanningDataLoader planningDataLoader;
 
-          List<ProductionSuggestionDto> suggestions = new ArrayList<>();
+     @Inject
+     @Any
+     Instance<ProductionPlanner> planners;
 
-          for (ProductEntity product : products) {
-               List<ProductMaterialEntity> bom = ProductMaterialEntity.find(
-                         "product.id", product.getId()).list();
+     @Inject
+     MeterRegistry registry;
 
-               if (bom.isEmpty()) {
-                    continue;
+     @Inject
+     CatalogHistoryServices catalogHistory;
+
+     @Inject
+     StockLedgerServices stockLedger;
+
+     /** Bumped on every observed change; stamped on every plan handed out. */
+     private final AtomicLong catalogVersion = new AtomicLong();
+
+     private final Set<String> dirtyProducts = ConcurrentHashMap.newKeySet();
+     private final Set<String> dirtyMaterials = ConcurrentHashMap.newKeySet();
+     private final AtomicBoolean reloadAll = new AtomicBoolean(true);
+
+     private final Map<String, CachedPlan> plans = new ConcurrentHashMap<>();
+
+     /**
+      * Guards the fields below. A lock rather than a monitor: the holder
+      * may wait on the database, which would pin a virtual thread.
+      */
+     private final ReentrantLock lock = new ReentrantLock();
+     /** Plans against exploded BOMs: every product's lines are raw materials only. */
+     private PlanningModel model;
+     private BomExplosion explosion;
+     /** Array form of {@link #model}, built on the first re-plan after it changes. */
+     private CompactPlanningModel compactModel;
+     private long planVersion;
+
+     private Counter cacheHits;
+     private Counter cacheMisses;
+     private Timer rebuildTimer;
+
+     private record CachedPlan(long catalogVersion, long planVersion, ProductionResultDto result) {
+     }
+
+     @PostConstruct
+     void initMetrics() {
+          cacheHits = Counter.builder("autoflex.suggestion.cache.requests")
+                    .tag("result", "hit")
+                    .description("Production suggestions served from the in-memory cache")
+                    .register(registry);
+          cacheMisses = Counter.builder("autoflex.suggestion.cache.requests")
+                    .tag("result", "miss")
+                    .description("Production suggestions that required re-planning")
+                    .register(registry);
+          rebuildTimer = Timer.builder("autoflex.suggestion.cache.rebuild")
+                    .description("Time spent refreshing the planning model and re-planning")
+                    .register(registry);
+          registry.gauge("autoflex.suggestion.cache.hit.ratio", this, ProductionServices::hitRatio);
+     }
+
+     public PlanSnapshot suggestProduction(String strategy) {
+          ProductionPlanner planner = resolvePlanner(strategy);
+
+          long version = catalogVersion.get();
+          CachedPlan cached = plans.get(planner.name());
+          if (cached != null && cached.catalogVersion() == version) {
+               cacheHits.increment();
+               return new PlanSnapshot(version, cached.result());
+          }
+
+          lock.lock();
+          try {
+               Timer.Sample sample = Timer.start(registry);
+               refreshModel();
+
+               cached = plans.get(planner.name());
+               ProductionResultDto result;
+               if (cached != null && cached.planVersion() == planVersion) {
+                    cacheHits.increment();
+                    result = cached.result();
+               } else {
+                    cacheMisses.increment();
+                    result = toResult(compactModel(), plan(planner, compactModel()));
                }
+               plans.put(planner.name(), new CachedPlan(version, planVersion, result));
+               sample.stop(rebuildTimer);
+               return new PlanSnapshot(version, result);
+          } finally {
+               lock.unlock();
+          }
+     }
+
+     /**
+      * Plans against the catalog and stock as they were at {@code asOf}:
+      * products and BOMs from the history tables, available stock from the
+      * ledger. Not cached; every call reads the versions valid at that
+      * moment, so its cost follows the changes made since, not the cache.
+      */
+     public PlanSnapshot suggestProduction(String strategy, Instant asOf) {
+          ProductionPlanner planner = resolvePlanner(strategy);
+          long version = catalogVersion.get();
+
+          List<PlanningProduct> products = catalogHistory.productsAt(asOf);
+          BomExplosion past = BomExplosion.of(catalogHistory.bomAt(asOf), catalogHistory.componentLinesAt(asOf));
+          Map<String, List<BomLine>> bomByProduct = new HashMap<>();
+          products.forEach(product -> putExplodedBom(past, bomByProduct, product.id()));
+
+          CompactPlanningModel pastModel = CompactPlanningModel.of(
+                    new PlanningModel(products, stockLedger.availableAt(asOf), bomByProduct));
+          return new PlanSnapshot(version, toResult(pastModel, plan(planner, pastModel)));
+     }
 
-               int quantity = computeMaxUnits(bom, availableStock);
+     /**
+      * Plans every scenario against one shared snapshot of the catalog.
+      * The snapshot is taken under the lock; the scenarios are then
+      * planned in parallel on the common fork-join pool. The snapshot is
+      * immutable, so they share it without locking.
+      */
+     public ScenarioSnapshot evaluateScenarios(String strategy, List<ScenarioRequestDto> scenarios) {
+          ProductionPlanner planner = resolvePlanner(strategy);
 
-               if (quantity <= 0) {
-                    continue;
+          long version;
+          CompactPlanningModel base;
+          lock.lock();
+          try {
+               version = catalogVersion.get();
+               refreshModel();
+               base = compactModel();
+          } finally {
+               lock.unlock();
+          }
+
+          // Resolve the overrides up front so that a bad id fails the request before any planning
+          List<CompactPlanningModel> models = scenarios.stream()
+                    .map(scenario -> applyOverrides(base, scenario))
+                    .toList();
+
+          List<ScenarioResultDto> results = IntStream.range(0, scenarios.size())
+                    .parallel()
+                    .mapToObj(i -> new ScenarioResultDto(
+                              scenarios.get(i).name(),
+                              toResult(models.get(i), plan(planner, models.get(i)))))
+                    .toList();
+          return new ScenarioSnapshot(version, results);
+     }
+
+     private static CompactPlanningModel applyOverrides(CompactPlanningModel base, ScenarioRequestDto scenario) {
+          long[] stock = base.stockCopy();
+          int[] values = base.valueCopy();
+          if (scenario.stock() != null) {
+               for (StockOverrideDto override : scenario.stock()) {
+                    int m = base.materialIndex(override.rawMaterialId());
+                    if (m < 0) {
+                         throw new BadRequestException("Scenario " + scenario.name()
+                                   + ": raw material not found with id: " + override.rawMaterialId());
+                    }
+                    stock[m] = Math.max(0, stock[m] + override.delta());
                }
+          }
+          if (scenario.prices() != null) {
+               for (PriceOverrideDto override : scenario.prices()) {
+                    int p = base.productIndex(override.productId());
+                    if (p < 0) {
+                         throw new BadRequestException("Scenario " + scenario.name()
+                                   + ": product not found with id: " + override.productId());
+                    }
+                    values[p] = override.value();
+               }
+          }
+          return base.withOverrides(stock, values);
+     }
+
+     void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+          switch (event.kind()) {
+               case PRODUCT, BOM_LINE, COMPONENT -> dirtyProducts.add(event.productId());
+               case RAW_MATERIAL -> dirtyMaterials.add(event.rawMaterialId());
+               case ALL -> reloadAll.set(true);
+          }
+          // Publish the dirty ids before the version so a reader that sees the
+          // new version is guaranteed to also see what changed
+          catalogVersion.incrementAndGet();
+     }
 
-               for (ProductMaterialEntity item : bom) {
-                    String matId = item.getRawMaterial().getId();
-                    availableStock.merge(matId, -(quantity * item.getRequiredQuantity()), (a, b) -> a + b);
+     /** Applies pending changes to {@link #model}; must hold the lock. */
+     private void refreshModel() {
+          if (reloadAll.getAndSet(false)) {
+               dirtyProducts.clear();
+               dirtyMaterials.clear();
+               PlanningModel direct = planningDataLoader.load();
+               explosion = BomExplosion.of(direct.bomByProduct(), planningDataLoader.loadAllComponentLines());
+               Map<String, List<BomLine>> bomByProduct = new HashMap<>();
+               direct.products().forEach(product -> putExplodedBom(explosion, bomByProduct, product.id()));
+               model = new PlanningModel(direct.products(), direct.stock(), bomByProduct);
+               compactModel = null;
+               planVersion++;
+               return;
+          }
+          if (dirtyProducts.isEmpty() && dirtyMaterials.isEmpty()) {
+               return;
+          }
+
+          Set<String> changedProducts = drain(dirtyProducts);
+          Set<String> changedMaterials = drain(dirtyMaterials);
+
+          // Decide reachability against the old model so removed products and
+          // BOM lines still count as touched
+          boolean affectsPlans = model.bomByProduct().values().stream()
+                    .flatMap(List::stream)
+                    .anyMatch(line -> changedMaterials.contains(line.rawMaterialId()));
+
+          Map<String, PlanningProduct> products = new LinkedHashMap<>();
+          model.products().forEach(p -> products.put(p.id(), p));
+          Map<String, Integer> stock = new HashMap<>(model.stock());
+          Map<String, List<BomLine>> bomByProduct = new HashMap<>(model.bomByProduct());
+
+          // Apply every changed product before exploding, so an assembly and
+          // its sub-assembly changed together are exploded once
+          Set<String> reexplode = new HashSet<>();
+          for (String productId : changedProducts) {
+               Optional<PlanningProduct> product = planningDataLoader.loadProduct(productId);
+               if (product.isPresent()) {
+                    products.put(productId, product.get());
+                    reexplode.addAll(explosion.update(productId, planningDataLoader.loadBom(productId),
+                              planningDataLoader.loadComponents(productId)));
+               } else {
+                    products.remove(productId);
+                    reexplode.addAll(explosion.update(productId, List.of(), List.of()));
+               }
+          }
+          for (String productId : reexplode) {
+               affectsPlans |= !model.bomOf(productId).isEmpty();
+               bomByProduct.remove(productId);
+               if (products.containsKey(productId)) {
+                    affectsPlans |= putExplodedBom(explosion, bomByProduct, productId);
                }
+          }
+          for (String rawMaterialId : changedMaterials) {
+               planningDataLoader.loadStock(rawMaterialId).ifPresentOrElse(
+                         rm -> stock.put(rm.id(), rm.stockQuantity()),
+                         () -> stock.remove(rawMaterialId));
+          }
 
-               suggestions.add(new ProductionSuggestionDto(
-                         product.getId(),
-                         product.getName(),
-                         product.getValue(),
-                         quantity,
-                         product.getValue() * quantity));
+          model = new PlanningModel(List.copyOf(products.values()), stock, bomByProduct);
+          compactModel = null;
+          if (affectsPlans) {
+               planVersion++;
           }
+     }
 
-          int grandTotal = suggestions.stream()
-                    .mapToInt(ProductionSuggestionDto::totalValue)
-                    .sum();
+     /**
+      * Puts the product's exploded BOM in {@code bomByProduct}. A product
+      * whose BOM contains itself is left out, so it is never planned.
+      *
+      * @return whether the product has a BOM to plan with
+      */
+     private static boolean putExplodedBom(BomExplosion explosion, Map<String, List<BomLine>> bomByProduct,
+                                           String productId) {
+          try {
+               List<BomLine> bom = explosion.explodedBom(productId);
+               if (bom.isEmpty()) {
+                    return false;
+               }
+               bomByProduct.put(productId, bom);
+               return true;
+          } catch (BomCycleException e) {
+               LOG.warnf("Product %s left out of planning: %s", productId, e.getMessage());
+               return false;
+          }
+     }
 
-          return new ProductionResultDto(suggestions, grandTotal);
+     /** Must hold the lock. */
+     private CompactPlanningModel compactModel() {
+          if (compactModel == null) {
+               compactModel = CompactPlanningModel.of(model);
+          }
+          return compactModel;
+     }
+
+     private int[] plan(ProductionPlanner planner, CompactPlanningModel model) {
+          Tags tags = Tags.of("strategy", planner.name());
+          Timer.Sample sample = Timer.start(registry);
+          int[] units = planner.plan(model);
+          sample.stop(Timer.builder(MetricNames.PLAN_TIME)
+                    .description("Time spent by a planner on one run")
+                    .tags(tags)
+                    .register(registry));
+          DistributionSummary.builder(MetricNames.PRODUCTS_CONSIDERED)
+                    .description("Products handed to a planner run")
+                    .tags(tags)
+                    .register(registry)
+                    .record(model.productCount());
+          DistributionSummary.builder(MetricNames.PRODUCTS_PLANNED)
+                    .description("Products a planner run decided to make")
+                    .tags(tags)
+                    .register(registry)
+                    .record(Arrays.stream(units).filter(quantity -> quantity > 0).count());
+          return units;
      }
 
-     private Map<String, Integer> buildStockMap() {
-          Map<String, Integer> stock = new HashMap<>();
-          RawMaterialEntity.<RawMaterialEntity>listAll()
-                    .forEach(rm -> stock.put(rm.getId(), rm.getStockQuantity()));
-          return stock;
+     private static Set<String> drain(Set<String> dirty) {
+          Set<String> drained = new HashSet<>();
+          for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+               drained.add(it.next());
+               it.remove();
+          }
+          return drained;
+     }
+
+     private double hitRatio() {
+          double total = cacheHits.count() + cacheMisses.count();
+          return total == 0 ? 0 : cacheHits.count() / total;
+     }
+
+     private ProductionPlanner resolvePlanner(String strategy) {
+          for (ProductionPlanner planner : planners) {
+               if (planner.name().equalsIgnoreCase(strategy)) {
+                    return planner;
+               }
+          }
+          throw new BadRequestException("Unknown planning strategy: " + strategy);
      }
 
-     private int computeMaxUnits(List<ProductMaterialEntity> bom,
-               Map<String, Integer> availableStock) {
-          int max = Integer.MAX_VALUE;
-          for (ProductMaterialEntity item : bom) {
-               String matId = item.getRawMaterial().getId();
-               int inStock = availableStock.getOrDefault(matId, 0);
-               int required = item.getRequiredQuantity();
-               max = Math.min(max, inStock / required);
+     private ProductionResultDto toResult(CompactPlanningModel model, int[] units) {
+          List<ProductionSuggestionDto> suggestions = new ArrayList<>();
+          for (int rank = 0; rank < model.productCount(); rank++) {
+               int p = model.productByValueDesc(rank);
+               int quantity = units[p];
+               if (quantity > 0) {
+                    suggestions.add(new ProductionSuggestionDto(
+                              model.productId(p),
+                              model.productName(p),
+                              model.productValue(p),
+                              quantity,
+                              model.productValue(p) * quantity));
+               }
           }
-          return max == Integer.MAX_VALUE ? 0 : max;
+
+          int grandTotal = suggestions.stream()
+                    .mapToInt(ProductionSuggestionDto::totalValue)
+                    .sum();
+
+          return new ProductionResultDto(suggestions, grandTotal);
      }
 }
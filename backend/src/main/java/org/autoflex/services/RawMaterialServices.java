@@ -1,26 +1,45 @@
 package org.autoflex.services;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.PageDto;
 import org.autoflex.dto.RawMaterialRequestDto;
 import org.autoflex.dto.RawMaterialResponseDto;
 import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.entities.StockMovementReason;
+import org.autoflex.events.CatalogChangedEvent;
 import org.autoflex.mapper.RawMaterialMapper;
+import org.autoflex.metrics.MetricNames;
 
 import java.util.List;
 
 @ApplicationScoped
+@Timed(MetricNames.SERVICE)
 public class RawMaterialServices {
 
     @Inject
     RawMaterialMapper mapper;
 
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    StockLedgerServices stockLedger;
+
+    private final KeysetPager pager = new KeysetPager("RawMaterialEntity", List.of("id", "name", "stockQuantity"));
+
     @Transactional
     public RawMaterialResponseDto create(RawMaterialRequestDto request) {
         RawMaterialEntity entity = mapper.toEntity(request);
         entity.persist();
+        stockLedger.record(entity.getId(), entity.getStockQuantity(), 0, StockMovementReason.CREATE);
+        catalogChanged.fire(CatalogChangedEvent.rawMaterial(entity.getId()));
         return mapper.toResponse(entity);
     }
 
@@ -31,6 +50,24 @@ public class RawMaterialServices {
                 .toList();
     }
 
+    /**
+     * Keyset-paginated listing. Without {@code fields} the rows have the
+     * usual {@link RawMaterialResponseDto} shape; otherwise only the requested columns
+     * are selected and returned.
+     */
+    public PageDto<?> findPage(String cursor, Integer limit, String sort, String fields) {
+        List<String> selected = pager.parseFields(fields);
+        if (fields == null) {
+            return pager.page(RawMaterialEntity.getEntityManager(), cursor, limit, sort, selected,
+                    row -> new RawMaterialResponseDto(
+                        row.get("id", String.class),
+                        row.get("name", String.class),
+                        row.get("stockQuantity", Integer.class)));
+        }
+        return pager.page(RawMaterialEntity.getEntityManager(), cursor, limit, sort, selected,
+                KeysetPager.toMap(selected));
+    }
+
     public RawMaterialResponseDto findById(String id) {
         RawMaterialEntity entity = RawMaterialEntity.findById(id);
         if (entity == null) {
@@ -45,8 +82,20 @@ public class RawMaterialServices {
         if (entity == null) {
             throw new NotFoundException("Raw material not found with id: " + id);
         }
+        if (request.stockQuantity() < entity.getReservedQuantity()) {
+            throw new ClientErrorException("Stock quantity cannot be lower than the reserved quantity "
+                    + entity.getReservedQuantity(), Response.Status.CONFLICT);
+        }
+        int stockDelta = request.stockQuantity() - entity.getStockQuantity();
         entity.setName(request.name());
         entity.setStockQuantity(request.stockQuantity());
+        if (stockDelta != 0) {
+            stockLedger.record(id, stockDelta, 0, StockMovementReason.SET);
+        }
+        // Flush now so a concurrent stock movement surfaces here as an
+        // OptimisticLockException (409) instead of failing at commit
+        RawMaterialEntity.flush();
+        catalogChanged.fire(CatalogChangedEvent.rawMaterial(id));
         return mapper.toResponse(entity);
     }
 
@@ -57,5 +106,7 @@ public class RawMaterialServices {
             throw new NotFoundException("Raw material not found with id: " + id);
         }
         entity.delete();
+        stockLedger.record(id, -entity.getStockQuantity(), -entity.getReservedQuantity(), StockMovementReason.DELETE);
+        catalogChanged.fire(CatalogChangedEvent.rawMaterial(id));
     }
 }
@@ -0,0 +1,335 @@
+package org.autoflex.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.NotFoundException;
+import org.autoflex.dto.StockLevelDto;
+import org.autoflex.entities.StockMovementEntity;
+import org.autoflex.entities.StockMovementReason;
+import org.autoflex.entities.StockSnapshotEntity;
+import org.autoflex.entities.StockSnapshotId;
+import org.autoflex.metrics.MetricNames;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only ledger of stock movements ({@code stock_movements}) with
+ * periodic snapshots ({@code stock_snapshots}), for "stock at time T".
+ *
+ * <p>Every writer of {@code stock_quantity} or {@code reserved_quantity}
+ * records its deltas here in the same transaction. The movements of a
+ * transaction are queued and only persisted just before it commits,
+ * stamped with that moment, so they reach the database as one JDBC insert
+ * batch and a long transaction does not land behind a cutoff that was
+ * already folded. The hot path is not append-only: {@code raw_materials}
+ * stays the running balance, because the conditional {@code UPDATE}s that
+ * stop overselling need one row to check against. The ledger is the
+ * history behind it, for reads at a past moment.
+ *
+ * <p>Every {@code autoflex.stock.snapshot-interval} the movements since the
+ * previous cutoff, up to {@code now - autoflex.stock.snapshot-lag}, are
+ * folded into a new snapshot of each material that moved, which closes
+ * that material's previous one. Every movement up to a cutoff is then in a
+ * snapshot at or before it. The position at T is the snapshots valid at T
+ * plus the movements since the latest cutoff before T: index range scans
+ * whose cost grows with the materials and the movements in one interval,
+ * not with the whole history. The lag leaves time for transactions that
+ * recorded a movement just before the cutoff to commit before it is folded.
+ *
+ * <p>Movements and closed snapshots older than
+ * {@code autoflex.stock.retention} are pruned by the same task, keeping
+ * the snapshots valid at the oldest moment that can still be read.
+ */
+@ApplicationScoped
+public class StockLedgerServices {
+
+    private static final Logger LOG = Logger.getLogger(StockLedgerServices.class);
+
+    /** Per material: sums of the movements in {@code (from, to]}, from the {@code occurred_at} index. */
+    private static final String MOVEMENTS_BETWEEN = "select m.rawMaterialId, "
+            + "sum(m.stockDelta), sum(m.reservedDelta) from StockMovementEntity m "
+            + "where m.occurredAt > :from and m.occurredAt <= :to group by m.rawMaterialId";
+
+    /** The snapshots valid at T, in two range scans on {@code (valid_to, taken_at)}, as for catalog history. */
+    private static final String SNAPSHOTS_OPEN_AT = "from StockSnapshotEntity s "
+            + "where s.validTo is null and s.id.takenAt <= :at";
+    private static final String SNAPSHOTS_CLOSED_AFTER = "from StockSnapshotEntity s "
+            + "where s.validTo > :at and s.id.takenAt <= :at";
+
+    /** Key of the movements queued by the current transaction. */
+    private static final Object PENDING = StockLedgerServices.class;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "autoflex.stock.snapshot-interval", defaultValue = "1h")
+    Duration snapshotInterval;
+
+    @ConfigProperty(name = "autoflex.stock.snapshot-lag", defaultValue = "1m")
+    Duration snapshotLag;
+
+    @ConfigProperty(name = "autoflex.stock.retention", defaultValue = "400d")
+    Duration retention;
+
+    /** Keeps compactions from overlapping when one outlasts the interval. */
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    /**
+     * Appends a movement to the current transaction, written when it
+     * commits. A zero movement is still recorded, e.g. a material created
+     * without stock.
+     */
+    public void record(String rawMaterialId, int stockDelta, int reservedDelta, StockMovementReason reason) {
+        @SuppressWarnings("unchecked")
+        List<StockMovementEntity> pending = (List<StockMovementEntity>) transactions.getResource(PENDING);
+        if (pending == null) {
+            List<StockMovementEntity> queued = new ArrayList<>();
+            transactions.putResource(PENDING, queued);
+            // Interposed synchronizations run last, after the persistence context's flush
+            transactions.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    writeAtCommit(queued);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                }
+            });
+            pending = queued;
+        }
+        pending.add(new StockMovementEntity(rawMaterialId, stockDelta, reservedDelta, reason, null));
+    }
+
+    /** Stamps a transaction's movements with the moment it commits and writes them. */
+    private void writeAtCommit(List<StockMovementEntity> movements) {
+        // Stored with microsecond precision; truncate so reads compare like for like
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        for (StockMovementEntity movement : movements) {
+            movement.setOccurredAt(now);
+            entityManager.persist(movement);
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Stock position of a raw material at {@code at}. 404 when it did not
+     * exist then, when it is older than the ledger and {@code at} is before
+     * the ledger's opening snapshot, or when {@code at} is past retention.
+     */
+    public StockLevelDto stockAt(String rawMaterialId, Instant at) {
+        requireRetained(at);
+        StockSnapshotEntity snapshot = entityManager.createQuery("from StockSnapshotEntity s "
+                        + "where s.id.rawMaterialId = :id and s.id.takenAt <= :at "
+                        + "order by s.id.takenAt desc", StockSnapshotEntity.class)
+                .setParameter("id", rawMaterialId)
+                .setParameter("at", at)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+
+        Object[] sums = entityManager.createQuery("select count(m), coalesce(sum(m.stockDelta), 0), "
+                        + "coalesce(sum(m.reservedDelta), 0) from StockMovementEntity m "
+                        + "where m.rawMaterialId = :id and m.occurredAt > :from and m.occurredAt <= :at", Object[].class)
+                .setParameter("id", rawMaterialId)
+                .setParameter("from", snapshot == null ? Instant.EPOCH : snapshot.getId().getTakenAt())
+                .setParameter("at", at)
+                .getSingleResult();
+        if (snapshot == null && ((Long) sums[0]) == 0) {
+            throw new NotFoundException("No stock history for raw material " + rawMaterialId + " at " + at);
+        }
+
+        int stock = (snapshot == null ? 0 : snapshot.getStockQuantity()) + ((Number) sums[1]).intValue();
+        int reserved = (snapshot == null ? 0 : snapshot.getReservedQuantity()) + ((Number) sums[2]).intValue();
+        return new StockLevelDto(rawMaterialId, stock, reserved, stock - reserved);
+    }
+
+    /**
+     * Available stock ({@code stock - reserved}) of every raw material that
+     * had history at {@code at}: the snapshots valid then plus one grouped
+     * scan of the movements since the latest cutoff before it. Materials
+     * deleted by then come out at zero. 404 when {@code at} is past retention.
+     */
+    public Map<String, Integer> availableAt(Instant at) {
+        requireRetained(at);
+        Map<String, long[]> positions = new HashMap<>();
+        for (String query : List.of(SNAPSHOTS_OPEN_AT, SNAPSHOTS_CLOSED_AFTER)) {
+            entityManager.createQuery(query, StockSnapshotEntity.class)
+                    .setParameter("at", at)
+                    .getResultStream()
+                    .forEach(snapshot -> positions.put(snapshot.getId().getRawMaterialId(),
+                            new long[]{snapshot.getStockQuantity(), snapshot.getReservedQuantity()}));
+        }
+        movementsBetween(latestCutoff(at), at).forEach((rawMaterialId, sums) -> {
+            long[] position = positions.computeIfAbsent(rawMaterialId, k -> new long[2]);
+            position[0] += sums[0];
+            position[1] += sums[1];
+        });
+
+        Map<String, Integer> available = new HashMap<>();
+        positions.forEach((rawMaterialId, position) ->
+                available.put(rawMaterialId, Math.toIntExact(position[0] - position[1])));
+        return available;
+    }
+
+    private void requireRetained(Instant at) {
+        if (at.isBefore(Instant.now().minus(retention))) {
+            throw new NotFoundException("Stock history before " + retention.toDays() + " days ago has been pruned");
+        }
+    }
+
+    /** Parses an ISO-8601 instant such as {@code 2026-01-05T09:00:00Z}; 400 otherwise. */
+    public static Instant parseInstant(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid instant: " + value + " (expected e.g. 2026-01-05T09:00:00Z)");
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        vertx.setPeriodic(snapshotInterval.toMillis(),
+                timer -> vertx.executeBlocking(() -> {
+                    compact();
+                    return null;
+                }, false));
+    }
+
+    /**
+     * Writes a snapshot for every material that moved since its last one,
+     * then prunes the history past retention; returns how many snapshots.
+     */
+    int compact() {
+        if (!compactionLock.tryLock()) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            Instant now = Instant.now();
+            Instant cutoff = now.minus(snapshotLag).truncatedTo(ChronoUnit.MICROS);
+            return QuarkusTransaction.requiringNew().call(() -> {
+                int written = compactUpTo(cutoff);
+                pruneBefore(now.minus(retention));
+                return written;
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("Could not compact the stock ledger", e);
+            return 0;
+        } finally {
+            sample.stop(Timer.builder(MetricNames.STOCK_COMPACTION)
+                    .description("Time spent folding stock movements into snapshots")
+                    .register(registry));
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Folds the movements since the previous cutoff, up to {@code cutoff},
+     * into snapshots and closes the ones they replace; must run in a
+     * transaction. Cutoffs only move forward: an earlier one folds nothing.
+     */
+    int compactUpTo(Instant cutoff) {
+        Instant previousCutoff = entityManager.createQuery(
+                        "select max(s.id.takenAt) from StockSnapshotEntity s", Instant.class)
+                .getSingleResult();
+        if (previousCutoff != null && !previousCutoff.isBefore(cutoff)) {
+            return 0;
+        }
+        Map<String, long[]> moved = movementsBetween(previousCutoff == null ? Instant.EPOCH : previousCutoff, cutoff);
+        if (moved.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, StockSnapshotEntity> previous = entityManager.createQuery("from StockSnapshotEntity s "
+                        + "where s.id.rawMaterialId in :ids and s.validTo is null", StockSnapshotEntity.class)
+                .setParameter("ids", moved.keySet())
+                .getResultStream()
+                .collect(Collectors.toMap(snapshot -> snapshot.getId().getRawMaterialId(), snapshot -> snapshot));
+
+        moved.forEach((rawMaterialId, sums) -> {
+            StockSnapshotEntity base = previous.get(rawMaterialId);
+            long stock = (base == null ? 0 : base.getStockQuantity()) + sums[0];
+            long reserved = (base == null ? 0 : base.getReservedQuantity()) + sums[1];
+            if (base != null) {
+                base.setValidTo(cutoff);
+            }
+            entityManager.persist(new StockSnapshotEntity(new StockSnapshotId(rawMaterialId, cutoff),
+                    Math.toIntExact(stock), Math.toIntExact(reserved), null));
+        });
+        return moved.size();
+    }
+
+    /**
+     * Deletes the movements and the closed snapshots that no read at or
+     * after {@code horizon} needs: everything up to the latest cutoff at or
+     * before it, except the snapshots still valid then. Returns the rows
+     * deleted.
+     */
+    int pruneBefore(Instant horizon) {
+        Instant kept = latestCutoff(horizon);
+        if (kept.equals(Instant.EPOCH)) {
+            return 0;
+        }
+        return entityManager.createQuery("delete from StockMovementEntity m where m.occurredAt <= :kept")
+                .setParameter("kept", kept)
+                .executeUpdate()
+                + entityManager.createQuery("delete from StockSnapshotEntity s where s.validTo <= :kept")
+                .setParameter("kept", kept)
+                .executeUpdate();
+    }
+
+    /**
+     * The latest compaction cutoff at or before {@code at}, or the epoch. Every
+     * movement up to it is folded into a snapshot, so reads only add the ones after.
+     */
+    private Instant latestCutoff(Instant at) {
+        Instant cutoff = entityManager.createQuery(
+                        "select max(s.id.takenAt) from StockSnapshotEntity s where s.id.takenAt <= :at", Instant.class)
+                .setParameter("at", at)
+                .getSingleResult();
+        return cutoff == null ? Instant.EPOCH : cutoff;
+    }
+
+    /** Per material, the sums of its movements in {@code (from, to]}. */
+    private Map<String, long[]> movementsBetween(Instant from, Instant to) {
+        Map<String, long[]> moved = new HashMap<>();
+        entityManager.createQuery(MOVEMENTS_BETWEEN, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultStream()
+                .forEach(row -> moved.put((String) row[0],
+                        new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()}));
+        return moved;
+    }
+}
@@ -0,0 +1,242 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import io.quarkus.panache.common.Parameters;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.ProductionOrderRequestDto;
+import org.autoflex.dto.ProductionOrderResultDto;
+import org.autoflex.dto.StockLevelDto;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.entities.StockMovementReason;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.autoflex.planning.BomCycleException;
+import org.autoflex.planning.BomExplosion;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.PlanningDataLoader;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Atomic stock movements on raw materials.
+ *
+ * <p>Every movement is a single conditional {@code UPDATE} that both checks
+ * and applies the change, so concurrent writers never read-modify-write and
+ * cannot lose each other's updates. The row lock is held only for that one
+ * statement's transaction. A movement that would break the invariant
+ * {@code 0 <= reserved <= stock} updates nothing and is rejected with 409.
+ * Each statement also bumps {@code version}, so entity-based writers
+ * ({@link RawMaterialServices#update}) detect the change optimistically.
+ * Successful movements are appended to the {@link StockLedgerServices
+ * ledger} in the same transaction.
+ */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class StockMovementServices {
+
+    /**
+     * Deducts {@code required_quantity * :quantity} from every material of
+     * the product's BOM in one statement, touching only rows that can cover it.
+     * The guard multiplies in {@code long}, so a large order cannot wrap
+     * negative and pass it; once it holds, the deduction fits in an int.
+     */
+    private static final String PRODUCE = "update RawMaterialEntity rm "
+            + "set rm.stockQuantity = rm.stockQuantity - :quantity * ("
+            + "  select pm.requiredQuantity from ProductMaterialEntity pm "
+            + "  where pm.id.productId = :productId and pm.id.rawMaterialId = rm.id), "
+            + "rm.version = rm.version + 1 "
+            + "where rm.id in ("
+            + "  select bom.id.rawMaterialId from ProductMaterialEntity bom where bom.id.productId = :productId) "
+            + "and rm.stockQuantity - rm.reservedQuantity >= cast(:quantity as Long) * ("
+            + "  select line.requiredQuantity from ProductMaterialEntity line "
+            + "  where line.id.productId = :productId and line.id.rawMaterialId = rm.id)";
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    PlanningDataLoader planningDataLoader;
+
+    @Inject
+    StockLedgerServices stockLedger;
+
+    public StockLevelDto findStock(String id) {
+        Object[] row = RawMaterialEntity.getEntityManager()
+                .createQuery("select rm.stockQuantity, rm.reservedQuantity from RawMaterialEntity rm "
+                        + "where rm.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Raw material not found with id: " + id));
+        int stock = (Integer) row[0];
+        int reserved = (Integer) row[1];
+        return new StockLevelDto(id, stock, reserved, stock - reserved);
+    }
+
+    /** Stock positions of the given raw materials; ids that do not exist are skipped. */
+    public List<StockLevelDto> findStock(Collection<String> ids) {
+        return RawMaterialEntity.getEntityManager()
+                .createQuery("select new org.autoflex.dto.StockLevelDto(rm.id, rm.stockQuantity, "
+                        + "rm.reservedQuantity, rm.stockQuantity - rm.reservedQuantity) "
+                        + "from RawMaterialEntity rm where rm.id in :ids order by rm.id", StockLevelDto.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /** Sets {@code quantity} units aside, if that many are available. */
+    @Transactional
+    public StockLevelDto reserve(String id, int quantity) {
+        int updated = RawMaterialEntity.update(
+                "reservedQuantity = reservedQuantity + ?1, version = version + 1 "
+                        + "where id = ?2 and stockQuantity - reservedQuantity >= ?1",
+                quantity, id);
+        return afterMovement(id, updated, 0, quantity, StockMovementReason.RESERVE,
+                "Not enough available stock to reserve " + quantity);
+    }
+
+    /** Returns {@code quantity} reserved units to the available pool. */
+    @Transactional
+    public StockLevelDto release(String id, int quantity) {
+        int updated = RawMaterialEntity.update(
+                "reservedQuantity = reservedQuantity - ?1, version = version + 1 "
+                        + "where id = ?2 and reservedQuantity >= ?1",
+                quantity, id);
+        return afterMovement(id, updated, 0, -quantity, StockMovementReason.RELEASE,
+                "Cannot release more than the reserved quantity");
+    }
+
+    /** Takes {@code quantity} previously reserved units out of stock. */
+    @Transactional
+    public StockLevelDto consume(String id, int quantity) {
+        int updated = RawMaterialEntity.update(
+                "stockQuantity = stockQuantity - ?1, reservedQuantity = reservedQuantity - ?1, "
+                        + "version = version + 1 "
+                        + "where id = ?2 and reservedQuantity >= ?1",
+                quantity, id);
+        return afterMovement(id, updated, -quantity, -quantity, StockMovementReason.CONSUME,
+                "Cannot consume more than the reserved quantity");
+    }
+
+    /**
+     * Adds {@code delta} to the stock on hand (negative to take unreserved
+     * units out), as long as the result still covers the reservations.
+     */
+    @Transactional
+    public StockLevelDto adjust(String id, int delta) {
+        int updated = RawMaterialEntity.update(
+                "stockQuantity = stockQuantity + ?1, version = version + 1 "
+                        + "where id = ?2 and stockQuantity + ?1 >= reservedQuantity",
+                delta, id);
+        return afterMovement(id, updated, delta, 0, StockMovementReason.ADJUST,
+                "Not enough available stock to adjust by " + delta);
+    }
+
+    private StockLevelDto afterMovement(String id, int updated, int stockDelta, int reservedDelta,
+                                        StockMovementReason reason, String conflictMessage) {
+        if (updated == 0) {
+            // Either the row is missing or the condition failed; tell them apart
+            findStock(id);
+            throw new ClientErrorException(conflictMessage, Response.Status.CONFLICT);
+        }
+        stockLedger.record(id, stockDelta, reservedDelta, reason);
+        catalogChanged.fire(CatalogChangedEvent.rawMaterial(id));
+        return findStock(id);
+    }
+
+    /**
+     * Makes {@code quantity} units of a product: deducts its whole BOM from
+     * available stock in a single set-based {@code UPDATE}. Either every
+     * material is deducted or, if any is short, none is (409). A product
+     * with sub-assemblies has its exploded BOM deducted instead, one
+     * conditional {@code UPDATE} per material in the same transaction.
+     */
+    @Transactional
+    public ProductionOrderResultDto produce(String productId, int quantity) {
+        return produceOne(productId, quantity);
+    }
+
+    /** Runs several production orders in one transaction; all succeed or none does. */
+    @Transactional
+    public List<ProductionOrderResultDto> produceAll(List<ProductionOrderRequestDto> orders) {
+        return orders.stream()
+                .map(order -> produceOne(order.productId(), order.quantity()))
+                .toList();
+    }
+
+    private ProductionOrderResultDto produceOne(String productId, int quantity) {
+        // Read here and share-locked until commit rather than taken from the
+        // in-memory explosion, which only follows this instance's committed
+        // changes: the order deducts, and the ledger records, the current BOM
+        BomExplosion bom = planningDataLoader.lockBomTree(productId);
+        if (bom.hasComponents(productId)) {
+            Map<String, Integer> requirements;
+            try {
+                requirements = bom.explode(productId);
+            } catch (BomCycleException e) {
+                throw new ClientErrorException(e.getMessage(), Response.Status.CONFLICT);
+            }
+            return produceAssembly(productId, quantity, requirements);
+        }
+
+        List<BomLine> lines = bom.explodedBom(productId);
+        if (lines.isEmpty()) {
+            if (ProductEntity.findById(productId) == null) {
+                throw new NotFoundException("Product not found with id: " + productId);
+            }
+            throw new ClientErrorException("Product " + productId + " has no bill of materials",
+                    Response.Status.CONFLICT);
+        }
+
+        int updated = RawMaterialEntity.update(PRODUCE,
+                Parameters.with("quantity", quantity).and("productId", productId));
+        if (updated != lines.size()) {
+            // Some material was short; the exception rolls back the rows already deducted
+            throw new ClientErrorException("Not enough stock to produce " + quantity
+                    + " units of product " + productId, Response.Status.CONFLICT);
+        }
+
+        for (BomLine line : lines) {
+            // Fits in an int: the UPDATE only deducts what stock on hand covers
+            int deducted = Math.toIntExact(Math.multiplyExact((long) quantity, line.requiredQuantity()));
+            stockLedger.record(line.rawMaterialId(), -deducted, 0, StockMovementReason.PRODUCE);
+            catalogChanged.fire(CatalogChangedEvent.rawMaterial(line.rawMaterialId()));
+        }
+        return new ProductionOrderResultDto(productId, quantity, updated);
+    }
+
+    private ProductionOrderResultDto produceAssembly(String productId, int quantity,
+                                                     Map<String, Integer> exploded) {
+        // Rows are updated in id order, so concurrent orders lock them in the same order
+        Map<String, Integer> requirements = new TreeMap<>(exploded);
+        if (requirements.isEmpty()) {
+            throw new ClientErrorException("Product " + productId + " has no raw materials in its bill of materials",
+                    Response.Status.CONFLICT);
+        }
+        for (Map.Entry<String, Integer> line : requirements.entrySet()) {
+            long needed = (long) line.getValue() * quantity;
+            int updated = needed > Integer.MAX_VALUE ? 0 : RawMaterialEntity.update(
+                    "stockQuantity = stockQuantity - ?1, version = version + 1 "
+                            + "where id = ?2 and stockQuantity - reservedQuantity >= ?1",
+                    (int) needed, line.getKey());
+            if (updated == 0) {
+                // The exception rolls back the rows already deducted
+                throw new ClientErrorException("Not enough stock to produce " + quantity
+                        + " units of product " + productId, Response.Status.CONFLICT);
+            }
+            stockLedger.record(line.getKey(), (int) -needed, 0, StockMovementReason.PRODUCE);
+        }
+
+        requirements.keySet().forEach(id -> catalogChanged.fire(CatalogChangedEvent.rawMaterial(id)));
+        return new ProductionOrderResultDto(productId, quantity, requirements.size());
+    }
+}
@@ -0,0 +1,252 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import org.autoflex.dto.AtRiskProductDto;
+import org.autoflex.dto.AtRiskRevenueDto;
+import org.autoflex.dto.ProductMaterialResponseDto;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.autoflex.planning.MaterialInfo;
+import org.autoflex.planning.PlanningDataLoader;
+import org.autoflex.planning.PlanningProduct;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Where-used and impact analysis from an in-memory reverse BOM index
+ * (raw material → products using it).
+ *
+ * <p>The index is built from exploded BOMs ({@link BomExplosionServices}),
+ * so a product that uses a material through a sub-assembly is listed with
+ * the total it needs per unit. It is loaded once and then patched from
+ * {@link CatalogChangedEvent}s: a change to a product's lines or
+ * sub-assemblies re-indexes that product and the products above it, and a
+ * product or material change re-reads just that row. Pending changes are
+ * applied on the next read, so a query costs a few map lookups.
+ *
+ * <p>A product's lines can be indexed before its own change is applied,
+ * so lookups skip products the index does not know yet.
+ */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class WhereUsedServices {
+
+    private static final Comparator<PlanningProduct> BY_NAME =
+            Comparator.comparing(PlanningProduct::name).thenComparing(PlanningProduct::id);
+
+    @Inject
+    PlanningDataLoader planningDataLoader;
+
+    @Inject
+    BomExplosionServices bomExplosionServices;
+
+    private final Set<String> dirtyProducts = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyMaterials = ConcurrentHashMap.newKeySet();
+    /** Products whose lines or sub-assemblies changed */
+    private final Set<String> dirtyBoms = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadAll = new AtomicBoolean(true);
+
+    /** Guards the maps below; the holder may wait on the database, so not a monitor. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, PlanningProduct> products = new HashMap<>();
+    private final Map<String, MaterialInfo> materials = new HashMap<>();
+    /** product id → (raw material id → quantity per unit, sub-assemblies included) */
+    private final Map<String, Map<String, Integer>> bomByProduct = new HashMap<>();
+    /** raw material id → (product id → quantity per unit, sub-assemblies included) */
+    private final Map<String, Map<String, Integer>> usedBy = new HashMap<>();
+
+    /**
+     * Products whose BOM contains the raw material, directly or through
+     * sub-assemblies, by product name.
+     */
+    public List<ProductMaterialResponseDto> usedBy(String rawMaterialId) {
+        lock.lock();
+        try {
+            refresh();
+            MaterialInfo material = requireMaterial(rawMaterialId);
+            Map<String, Integer> users = usedBy.getOrDefault(rawMaterialId, Map.of());
+            return users.keySet().stream()
+                    .map(products::get)
+                    .filter(Objects::nonNull)
+                    .sorted(BY_NAME)
+                    .map(product -> new ProductMaterialResponseDto(
+                            product.id(),
+                            product.name(),
+                            material.id(),
+                            material.name(),
+                            users.get(product.id())))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Revenue that would be lost if the raw material ran out: for every
+     * product using it, its unit value times the units its whole BOM allows
+     * from available stock. Products are considered independently, so this
+     * is an upper bound, not a production plan.
+     */
+    public AtRiskRevenueDto atRiskRevenue(String rawMaterialId) {
+        lock.lock();
+        try {
+            refresh();
+            MaterialInfo material = requireMaterial(rawMaterialId);
+            Map<String, Integer> users = usedBy.getOrDefault(rawMaterialId, Map.of());
+
+            List<AtRiskProductDto> atRisk = users.keySet().stream()
+                    .map(products::get)
+                    .filter(Objects::nonNull)
+                    .map(product -> {
+                        int units = producibleUnits(product.id());
+                        return new AtRiskProductDto(
+                                product.id(),
+                                product.name(),
+                                product.value(),
+                                users.get(product.id()),
+                                units,
+                                (long) product.value() * units);
+                    })
+                    .sorted(Comparator.comparingLong(AtRiskProductDto::revenue).reversed()
+                            .thenComparing(AtRiskProductDto::productId))
+                    .toList();
+
+            long total = atRisk.stream().mapToLong(AtRiskProductDto::revenue).sum();
+            return new AtRiskRevenueDto(material.id(), material.name(), material.availableQuantity(), total, atRisk);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        switch (event.kind()) {
+            case PRODUCT -> {
+                dirtyProducts.add(event.productId());
+                dirtyBoms.add(event.productId());
+            }
+            case RAW_MATERIAL -> dirtyMaterials.add(event.rawMaterialId());
+            case BOM_LINE, COMPONENT -> dirtyBoms.add(event.productId());
+            case ALL -> reloadAll.set(true);
+        }
+    }
+
+    private MaterialInfo requireMaterial(String rawMaterialId) {
+        MaterialInfo material = materials.get(rawMaterialId);
+        if (material == null) {
+            throw new NotFoundException("Raw material not found with id: " + rawMaterialId);
+        }
+        return material;
+    }
+
+    /**
+     * Units the product's exploded BOM allows from available stock, i.e. on
+     * hand minus reserved.
+     */
+    private int producibleUnits(String productId) {
+        Map<String, Integer> bom = bomByProduct.getOrDefault(productId, Map.of());
+        long units = bom.isEmpty() ? 0 : Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> line : bom.entrySet()) {
+            MaterialInfo material = materials.get(line.getKey());
+            if (material == null) {
+                // Deleted, and its BOM lines with it
+                continue;
+            }
+            units = Math.min(units, Math.max(0, material.availableQuantity()) / line.getValue());
+        }
+        return (int) units;
+    }
+
+    /** Applies pending changes; must hold the lock. */
+    private void refresh() {
+        if (reloadAll.getAndSet(false)) {
+            dirtyProducts.clear();
+            dirtyMaterials.clear();
+            dirtyBoms.clear();
+            reload();
+            return;
+        }
+
+        for (String productId : drain(dirtyProducts)) {
+            planningDataLoader.loadProduct(productId).ifPresentOrElse(
+                    product -> products.put(productId, product),
+                    () -> products.remove(productId));
+        }
+        for (String rawMaterialId : drain(dirtyMaterials)) {
+            planningDataLoader.loadMaterial(rawMaterialId).ifPresentOrElse(
+                    material -> materials.put(rawMaterialId, material),
+                    () -> {
+                        // Deleting a material deletes the BOM lines using it
+                        materials.remove(rawMaterialId);
+                        usedBy.remove(rawMaterialId);
+                    });
+        }
+        Set<String> changed = drain(dirtyBoms);
+        if (!changed.isEmpty()) {
+            // A sub-assembly's change reaches every product built from it
+            Set<String> affected = new HashSet<>();
+            changed.forEach(productId -> affected.addAll(bomExplosionServices.ancestorsOf(productId)));
+            affected.forEach(this::index);
+        }
+    }
+
+    private void reload() {
+        products.clear();
+        materials.clear();
+        bomByProduct.clear();
+        usedBy.clear();
+        planningDataLoader.loadProducts().forEach(product -> products.put(product.id(), product));
+        planningDataLoader.loadMaterials().forEach(material -> materials.put(material.id(), material));
+        products.keySet().forEach(this::index);
+    }
+
+    /** Replaces the product's entries with its current exploded BOM. */
+    private void index(String productId) {
+        Map<String, Integer> old = bomByProduct.remove(productId);
+        if (old != null) {
+            old.keySet().forEach(rawMaterialId -> unlink(productId, rawMaterialId));
+        }
+        if (!products.containsKey(productId)) {
+            return;
+        }
+
+        Map<String, Integer> requirements;
+        try {
+            requirements = bomExplosionServices.requirements(productId);
+        } catch (ClientErrorException e) {
+            // A cycle: never producible, so nothing of it is at risk
+            return;
+        }
+        if (requirements.isEmpty()) {
+            return;
+        }
+        bomByProduct.put(productId, Map.copyOf(requirements));
+        requirements.forEach((rawMaterialId, quantity) -> usedBy
+                .computeIfAbsent(rawMaterialId, k -> new HashMap<>())
+                .put(productId, quantity));
+    }
+
+    private void unlink(String productId, String rawMaterialId) {
+        Map<String, Integer> users = usedBy.get(rawMaterialId);
+        if (users != null && users.remove(productId) != null && users.isEmpty()) {
+            usedBy.remove(rawMaterialId);
+        }
+    }
+
+    private static <T> Set<T> drain(Set<T> dirty) {
+        Set<T> drained = new HashSet<>();
+        for (Iterator<T> it = dirty.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+}
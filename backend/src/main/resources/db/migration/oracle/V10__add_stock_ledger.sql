@@ -0,0 +1,32 @@
+-- Append-only history of stock movements: one row per change to stock on
+-- hand and/or reservations. No foreign key, so the history of a deleted
+-- raw material is kept. Ids are allocated 50 at a time by the application.
+CREATE SEQUENCE stock_movements_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE stock_movements (
+    id NUMBER(19) NOT NULL,
+    raw_material_id RAW(16) NOT NULL,
+    stock_delta NUMBER(10) NOT NULL,
+    reserved_delta NUMBER(10) NOT NULL,
+    reason VARCHAR(20 CHAR) NOT NULL,
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_stock_movements PRIMARY KEY (id)
+);
+
+-- Movements of one material in a time window, summed from the index alone.
+-- No INCLUDE in Oracle, so the deltas are trailing key columns.
+CREATE INDEX idx_stock_movements_material_time
+    ON stock_movements (raw_material_id, occurred_at, stock_delta, reserved_delta);
+
+-- Stock folded from every movement up to taken_at, written periodically
+CREATE TABLE stock_snapshots (
+    raw_material_id RAW(16) NOT NULL,
+    taken_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    stock_quantity NUMBER(10) NOT NULL,
+    reserved_quantity NUMBER(10) NOT NULL,
+    CONSTRAINT pk_stock_snapshots PRIMARY KEY (raw_material_id, taken_at)
+);
+
+-- Opening balance of every existing raw material; history starts here
+INSERT INTO stock_snapshots (raw_material_id, taken_at, stock_quantity, reserved_quantity)
+SELECT id, SYSTIMESTAMP, stock_quantity, reserved_quantity FROM raw_materials;
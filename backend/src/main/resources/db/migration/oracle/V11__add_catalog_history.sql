@@ -0,0 +1,58 @@
+-- Versioned history of products, BOM lines and sub-assembly lines. Each row
+-- is one version, valid from valid_from until valid_to (exclusive; NULL while
+-- current). No foreign keys, so the history of deleted rows is kept. Ids are
+-- allocated 50 at a time by the application.
+CREATE SEQUENCE catalog_history_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE products_history (
+    id NUMBER(19) NOT NULL,
+    product_id RAW(16) NOT NULL,
+    name VARCHAR(150 CHAR) NOT NULL,
+    value NUMBER(10) NOT NULL,
+    valid_from TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    valid_to TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT pk_products_history PRIMARY KEY (id)
+);
+
+CREATE TABLE product_materials_history (
+    id NUMBER(19) NOT NULL,
+    product_id RAW(16) NOT NULL,
+    raw_material_id RAW(16) NOT NULL,
+    required_quantity NUMBER(10) NOT NULL,
+    valid_from TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    valid_to TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT pk_product_materials_history PRIMARY KEY (id)
+);
+
+CREATE TABLE product_components_history (
+    id NUMBER(19) NOT NULL,
+    product_id RAW(16) NOT NULL,
+    component_id RAW(16) NOT NULL,
+    required_quantity NUMBER(10) NOT NULL,
+    valid_from TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    valid_to TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT pk_product_components_history PRIMARY KEY (id)
+);
+
+-- Finds the current version to close when a row changes
+CREATE INDEX idx_products_history_current ON products_history (product_id, valid_to);
+CREATE INDEX idx_pm_history_current ON product_materials_history (product_id, valid_to);
+CREATE INDEX idx_pc_history_current ON product_components_history (product_id, valid_to);
+
+-- Versions valid at T: valid_to IS NULL, or valid_to > T; both filtered on valid_from <= T.
+-- valid_from is NOT NULL, so the open rows are in the index too.
+CREATE INDEX idx_products_history_validity ON products_history (valid_to, valid_from);
+CREATE INDEX idx_pm_history_validity ON product_materials_history (valid_to, valid_from);
+CREATE INDEX idx_pc_history_validity ON product_components_history (valid_to, valid_from);
+
+-- Opening version of the current catalog; history starts here
+INSERT INTO products_history (id, product_id, name, value, valid_from)
+SELECT catalog_history_seq.NEXTVAL, id, name, value, SYSTIMESTAMP FROM products;
+
+INSERT INTO product_materials_history (id, product_id, raw_material_id, required_quantity, valid_from)
+SELECT catalog_history_seq.NEXTVAL, product_id, raw_material_id, required_quantity, SYSTIMESTAMP
+FROM product_materials;
+
+INSERT INTO product_components_history (id, product_id, component_id, required_quantity, valid_from)
+SELECT catalog_history_seq.NEXTVAL, product_id, component_id, required_quantity, SYSTIMESTAMP
+FROM product_components;
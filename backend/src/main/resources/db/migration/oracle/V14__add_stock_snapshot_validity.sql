@@ -0,0 +1,23 @@
+-- Snapshots are valid from taken_at until the material's next snapshot
+-- (valid_to, NULL while current), so the position at T reads the
+-- snapshots valid then plus the movements since the latest cutoff before
+-- T, instead of searching each material's history for its latest one.
+ALTER TABLE stock_snapshots ADD valid_to TIMESTAMP(6) WITH TIME ZONE;
+
+UPDATE stock_snapshots s
+   SET valid_to = (SELECT MIN(n.taken_at) FROM stock_snapshots n
+                    WHERE n.raw_material_id = s.raw_material_id AND n.taken_at > s.taken_at);
+
+-- Current snapshot of a material, closed by the next compaction
+CREATE INDEX idx_stock_snapshots_current ON stock_snapshots (raw_material_id, valid_to);
+
+-- Snapshots valid at T: open ones, then the ones closed after T
+CREATE INDEX idx_stock_snapshots_validity ON stock_snapshots (valid_to, taken_at);
+
+-- Latest cutoff at or before T
+CREATE INDEX idx_stock_snapshots_taken ON stock_snapshots (taken_at);
+
+-- Movements of every material since a cutoff, summed from the index alone.
+-- No INCLUDE in Oracle, so the other columns are trailing key columns.
+CREATE INDEX idx_stock_movements_time
+    ON stock_movements (occurred_at, raw_material_id, stock_delta, reserved_delta);
@@ -0,0 +1,3 @@
+-- Keyset pagination sorted by name seeks on (name, id)
+CREATE INDEX idx_products_name_id ON products (name, id);
+CREATE INDEX idx_raw_materials_name_id ON raw_materials (name, id);
@@ -0,0 +1,7 @@
+ALTER TABLE raw_materials ADD (
+    reserved_quantity NUMBER(10) DEFAULT 0 NOT NULL,
+    version NUMBER(19) DEFAULT 0 NOT NULL
+);
+
+ALTER TABLE raw_materials
+    ADD CONSTRAINT ck_rm_reserved CHECK (reserved_quantity >= 0 AND reserved_quantity <= stock_quantity);
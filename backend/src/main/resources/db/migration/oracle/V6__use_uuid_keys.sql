@@ -0,0 +1,40 @@
+-- Store ids as RAW(16) instead of VARCHAR text. Oracle cannot change the
+-- type of a populated column, so each key is copied into a new column.
+ALTER TABLE product_materials DROP CONSTRAINT fk_pm_product;
+ALTER TABLE product_materials DROP CONSTRAINT fk_pm_material;
+ALTER TABLE product_materials DROP CONSTRAINT pk_prod_mat;
+DROP INDEX idx_products_name_id;
+DROP INDEX idx_raw_materials_name_id;
+
+ALTER TABLE products ADD (id_bin RAW(16));
+UPDATE products SET id_bin = HEXTORAW(REPLACE(id, '-', ''));
+ALTER TABLE products DROP PRIMARY KEY;
+ALTER TABLE products DROP COLUMN id;
+ALTER TABLE products RENAME COLUMN id_bin TO id;
+ALTER TABLE products MODIFY (id NOT NULL);
+ALTER TABLE products ADD CONSTRAINT pk_products PRIMARY KEY (id);
+
+ALTER TABLE raw_materials ADD (id_bin RAW(16));
+UPDATE raw_materials SET id_bin = HEXTORAW(REPLACE(id, '-', ''));
+ALTER TABLE raw_materials DROP PRIMARY KEY;
+ALTER TABLE raw_materials DROP COLUMN id;
+ALTER TABLE raw_materials RENAME COLUMN id_bin TO id;
+ALTER TABLE raw_materials MODIFY (id NOT NULL);
+ALTER TABLE raw_materials ADD CONSTRAINT pk_raw_materials PRIMARY KEY (id);
+
+ALTER TABLE product_materials ADD (product_id_bin RAW(16), raw_material_id_bin RAW(16));
+UPDATE product_materials
+   SET product_id_bin = HEXTORAW(REPLACE(product_id, '-', '')),
+       raw_material_id_bin = HEXTORAW(REPLACE(raw_material_id, '-', ''));
+ALTER TABLE product_materials DROP (product_id, raw_material_id);
+ALTER TABLE product_materials RENAME COLUMN product_id_bin TO product_id;
+ALTER TABLE product_materials RENAME COLUMN raw_material_id_bin TO raw_material_id;
+ALTER TABLE product_materials MODIFY (product_id NOT NULL, raw_material_id NOT NULL);
+ALTER TABLE product_materials ADD CONSTRAINT pk_prod_mat PRIMARY KEY (product_id, raw_material_id);
+ALTER TABLE product_materials
+    ADD CONSTRAINT fk_pm_product FOREIGN KEY (product_id) REFERENCES products(id);
+ALTER TABLE product_materials
+    ADD CONSTRAINT fk_pm_material FOREIGN KEY (raw_material_id) REFERENCES raw_materials(id);
+
+CREATE INDEX idx_products_name_id ON products (name, id);
+CREATE INDEX idx_raw_materials_name_id ON raw_materials (name, id);
@@ -0,0 +1,9 @@
+-- Reverse lookup (where-used, FK checks when deleting a raw material).
+-- Oracle has no INCLUDE, so required_quantity is a trailing key column;
+-- both BOM directions are then answered from the index alone.
+CREATE INDEX idx_pm_material_cover
+    ON product_materials (raw_material_id, product_id, required_quantity);
+
+-- BOM of one product (planner, listByProduct) without visiting the table
+CREATE INDEX idx_pm_product_cover
+    ON product_materials (product_id, raw_material_id, required_quantity);
@@ -0,0 +1,31 @@
+-- Append-only history of stock movements: one row per change to stock on
+-- hand and/or reservations. No foreign key, so the history of a deleted
+-- raw material is kept. Ids are allocated 50 at a time by the application.
+CREATE SEQUENCE stock_movements_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE stock_movements (
+    id BIGINT NOT NULL,
+    raw_material_id UUID NOT NULL,
+    stock_delta INTEGER NOT NULL,
+    reserved_delta INTEGER NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_stock_movements PRIMARY KEY (id)
+);
+
+-- Movements of one material in a time window, summed from the index alone
+CREATE INDEX idx_stock_movements_material_time
+    ON stock_movements (raw_material_id, occurred_at) INCLUDE (stock_delta, reserved_delta);
+
+-- Stock folded from every movement up to taken_at, written periodically
+CREATE TABLE stock_snapshots (
+    raw_material_id UUID NOT NULL,
+    taken_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    stock_quantity INTEGER NOT NULL,
+    reserved_quantity INTEGER NOT NULL,
+    CONSTRAINT pk_stock_snapshots PRIMARY KEY (raw_material_id, taken_at)
+);
+
+-- Opening balance of every existing raw material; history starts here
+INSERT INTO stock_snapshots (raw_material_id, taken_at, stock_quantity, reserved_quantity)
+SELECT id, CURRENT_TIMESTAMP, stock_quantity, reserved_quantity FROM raw_materials;
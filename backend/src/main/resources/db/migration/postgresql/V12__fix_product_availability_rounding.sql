@@ -0,0 +1,35 @@
+-- V9 summed BIGINT quantities, and SUM(bigint) is NUMERIC on PostgreSQL, so
+-- stock / required kept its fraction and the INTEGER cast rounded it up
+-- (7 in stock, 2 required gave 4 units). The sum is cast back to BIGINT
+-- and the division floored, as in the Oracle view.
+DROP MATERIALIZED VIEW product_availability;
+
+CREATE MATERIALIZED VIEW product_availability AS
+WITH RECURSIVE requirements (product_id, raw_material_id, required_quantity, depth) AS (
+    SELECT product_id, raw_material_id, CAST(required_quantity AS BIGINT), 1
+      FROM product_materials
+    UNION ALL
+    SELECT pc.product_id, r.raw_material_id,
+           LEAST(pc.required_quantity * r.required_quantity, 2147483647), r.depth + 1
+      FROM product_components pc
+      JOIN requirements r ON r.product_id = pc.component_id
+     WHERE r.depth < 32
+),
+exploded (product_id, raw_material_id, required_quantity) AS (
+    SELECT product_id, raw_material_id, CAST(LEAST(SUM(required_quantity), 2147483647) AS BIGINT)
+      FROM requirements
+     GROUP BY product_id, raw_material_id
+)
+SELECT p.id AS product_id,
+       CAST(COALESCE(MIN(FLOOR(GREATEST(rm.stock_quantity - rm.reserved_quantity, 0) / e.required_quantity)), 0)
+           AS INTEGER) AS max_units
+  FROM products p
+  LEFT JOIN exploded e ON e.product_id = p.id
+  LEFT JOIN raw_materials rm ON rm.id = e.raw_material_id
+ GROUP BY p.id;
+
+-- Required by REFRESH ... CONCURRENTLY, which keeps the view readable while it runs
+CREATE UNIQUE INDEX ux_product_availability ON product_availability (product_id);
+
+-- Keyset pages sorted or filtered by max_units
+CREATE INDEX idx_product_availability_units ON product_availability (max_units, product_id);
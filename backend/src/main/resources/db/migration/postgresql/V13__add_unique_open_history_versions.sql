@@ -0,0 +1,38 @@
+-- At most one open version (valid_to IS NULL) per product, BOM line and
+-- sub-assembly line. The application serializes writers on the product's
+-- row; these indexes make a missed lock fail instead of leaving two
+-- versions valid at once.
+
+-- Duplicates left by concurrent writes before this migration: close the
+-- older versions where the next one starts
+UPDATE products_history h
+   SET valid_to = (SELECT MIN(n.valid_from) FROM products_history n
+                    WHERE n.product_id = h.product_id AND n.valid_to IS NULL AND n.id > h.id)
+ WHERE h.valid_to IS NULL
+   AND EXISTS (SELECT 1 FROM products_history n
+                WHERE n.product_id = h.product_id AND n.valid_to IS NULL AND n.id > h.id);
+
+UPDATE product_materials_history h
+   SET valid_to = (SELECT MIN(n.valid_from) FROM product_materials_history n
+                    WHERE n.product_id = h.product_id AND n.raw_material_id = h.raw_material_id
+                      AND n.valid_to IS NULL AND n.id > h.id)
+ WHERE h.valid_to IS NULL
+   AND EXISTS (SELECT 1 FROM product_materials_history n
+                WHERE n.product_id = h.product_id AND n.raw_material_id = h.raw_material_id
+                  AND n.valid_to IS NULL AND n.id > h.id);
+
+UPDATE product_components_history h
+   SET valid_to = (SELECT MIN(n.valid_from) FROM product_components_history n
+                    WHERE n.product_id = h.product_id AND n.component_id = h.component_id
+                      AND n.valid_to IS NULL AND n.id > h.id)
+ WHERE h.valid_to IS NULL
+   AND EXISTS (SELECT 1 FROM product_components_history n
+                WHERE n.product_id = h.product_id AND n.component_id = h.component_id
+                  AND n.valid_to IS NULL AND n.id > h.id);
+
+CREATE UNIQUE INDEX ux_products_history_open ON products_history (product_id)
+    WHERE valid_to IS NULL;
+CREATE UNIQUE INDEX ux_pm_history_open ON product_materials_history (product_id, raw_material_id)
+    WHERE valid_to IS NULL;
+CREATE UNIQUE INDEX ux_pc_history_open ON product_components_history (product_id, component_id)
+    WHERE valid_to IS NULL;
@@ -0,0 +1,5 @@
+-- idx_pm_product_cover (V7) repeats the primary key (product_id,
+-- raw_material_id) and only adds required_quantity. A product's BOM is a
+-- handful of rows, so reading them from the table after the primary key
+-- costs less than maintaining a second index on every BOM write.
+DROP INDEX idx_pm_product_cover;
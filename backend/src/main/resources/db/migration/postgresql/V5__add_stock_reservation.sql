@@ -0,0 +1,6 @@
+ALTER TABLE raw_materials
+    ADD COLUMN reserved_quantity INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE raw_materials
+    ADD CONSTRAINT ck_rm_reserved CHECK (reserved_quantity >= 0 AND reserved_quantity <= stock_quantity);
@@ -0,0 +1,19 @@
+-- Store ids as native uuid (16 bytes) instead of VARCHAR(255) text.
+-- Every existing id was generated as a UUID, so the casts cannot fail.
+ALTER TABLE product_materials
+    DROP CONSTRAINT fk_pm_product,
+    DROP CONSTRAINT fk_pm_material;
+
+ALTER TABLE products
+    ALTER COLUMN id SET DATA TYPE UUID USING id::uuid;
+
+ALTER TABLE raw_materials
+    ALTER COLUMN id SET DATA TYPE UUID USING id::uuid;
+
+ALTER TABLE product_materials
+    ALTER COLUMN product_id SET DATA TYPE UUID USING product_id::uuid,
+    ALTER COLUMN raw_material_id SET DATA TYPE UUID USING raw_material_id::uuid;
+
+ALTER TABLE product_materials
+    ADD CONSTRAINT fk_pm_product FOREIGN KEY (product_id) REFERENCES products(id),
+    ADD CONSTRAINT fk_pm_material FOREIGN KEY (raw_material_id) REFERENCES raw_materials(id);
@@ -0,0 +1,8 @@
+-- Reverse lookup (where-used, FK checks when deleting a raw material).
+-- INCLUDE makes both BOM directions index-only scans.
+CREATE INDEX idx_pm_material_cover
+    ON product_materials (raw_material_id, product_id) INCLUDE (required_quantity);
+
+-- BOM of one product (planner, listByProduct) without visiting the table
+CREATE INDEX idx_pm_product_cover
+    ON product_materials (product_id, raw_material_id) INCLUDE (required_quantity);
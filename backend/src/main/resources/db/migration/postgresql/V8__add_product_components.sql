@@ -0,0 +1,15 @@
+-- Sub-assemblies: product_id consumes required_quantity units of the product component_id
+CREATE TABLE product_components (
+    product_id UUID NOT NULL,
+    component_id UUID NOT NULL,
+    required_quantity INTEGER NOT NULL,
+    CONSTRAINT pk_prod_comp PRIMARY KEY (product_id, component_id),
+    CONSTRAINT fk_pc_product FOREIGN KEY (product_id) REFERENCES products(id),
+    CONSTRAINT fk_pc_component FOREIGN KEY (component_id) REFERENCES products(id),
+    CONSTRAINT ck_pc_not_self CHECK (product_id <> component_id),
+    CONSTRAINT ck_pc_quantity CHECK (required_quantity >= 1)
+);
+
+-- Parents of a component (cycle checks, FK checks when deleting a product)
+CREATE INDEX idx_pc_component_cover
+    ON product_components (component_id, product_id) INCLUDE (required_quantity);
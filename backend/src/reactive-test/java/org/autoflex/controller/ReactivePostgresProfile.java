@@ -0,0 +1,25 @@
+package org.autoflex.controller;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+/**
+ * Runs the reactive build's tests on the {@code ci} PostgreSQL database
+ * (see {@code DB_URL} in the workflow), with the schema from the Flyway
+ * migrations instead of the H2 test schema.
+ */
+public class ReactivePostgresProfile implements QuarkusTestProfile {
+
+    @Override
+    public String getConfigProfile() {
+        return "ci";
+    }
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                "quarkus.flyway.enabled", "true",
+                "quarkus.hibernate-orm.database.generation", "none");
+    }
+}
@@ -0,0 +1,205 @@
+package org.autoflex.controller;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.*;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@TestProfile(ReactivePostgresProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReactiveProductControllerIT {
+
+     // IDs criados no primeiro teste, reutilizados nos outros
+     private static String productId;
+     private static String materialId;
+
+     // POST /products, POST /raw-materials
+
+     @Test
+     @Order(1)
+     @DisplayName("POST /products e /raw-materials (reativo) → 201 e os registros podem ser lidos de volta")
+     void create_ShouldPersistThroughReactiveClient() {
+          productId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Roda Reativa\", \"value\": 90 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .body("id", notNullValue())
+                    .body("name", equalTo("Roda Reativa"))
+                    .body("value", equalTo(90))
+                    .extract()
+                    .path("id");
+
+          materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Alumínio Reativo\", \"stockQuantity\": 20 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .body("id", notNullValue())
+                    .body("stockQuantity", equalTo(20))
+                    .extract()
+                    .path("id");
+
+          given()
+                    .when()
+                    .get("/products/" + productId)
+                    .then()
+                    .statusCode(200)
+                    .body("name", equalTo("Roda Reativa"));
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"\", \"value\": 90 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(400);
+     }
+
+     // POST /products/{id}/materials
+
+     @Test
+     @Order(2)
+     @DisplayName("POST /products/{id}/materials (reativo) → 201 e atualiza a quantidade quando o vínculo já existe")
+     void addMaterial_ShouldUpsertBomLine() {
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 3 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201)
+                    .body("requiredQuantity", is(3));
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 5 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201)
+                    .body("requiredQuantity", is(5));
+
+          given()
+                    .when()
+                    .get("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(1))
+                    .body("[0].rawMaterialId", equalTo(materialId))
+                    .body("[0].requiredQuantity", is(5));
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 1 }")
+                    .when()
+                    .post("/products/id-inexistente/materials")
+                    .then()
+                    .statusCode(404);
+     }
+
+     // POST /products/{id}/produce
+
+     @Test
+     @Order(3)
+     @DisplayName("POST /products/{id}/produce (reativo) → 200 e baixa o BOM; 409 quando falta estoque")
+     void produce_ShouldConsumeBomOrRejectWhenShort() {
+          given()
+                    .queryParam("quantity", 2)
+                    .when()
+                    .post("/products/" + productId + "/produce")
+                    .then()
+                    .statusCode(200)
+                    .body("quantity", is(2))
+                    .body("materialsConsumed", is(1));
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/stock")
+                    .then()
+                    .statusCode(200)
+                    .body("stockQuantity", is(10));
+
+          given()
+                    .queryParam("quantity", 3)
+                    .when()
+                    .post("/products/" + productId + "/produce")
+                    .then()
+                    .statusCode(409);
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/stock")
+                    .then()
+                    .statusCode(200)
+                    .body("stockQuantity", is(10));
+     }
+
+     // GET /products?fields=id,maxUnits
+
+     @Test
+     @Order(4)
+     @DisplayName("GET /products?fields=id,maxUnits (reativo, PostgreSQL) → 7 em estoque e 2 por unidade dão 3, não 4")
+     void maxUnits_ShouldRoundDownOnPostgres() throws InterruptedException {
+          String cork = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Cortiça Reativa\", \"stockQuantity\": 7 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+          String ring = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Anel Reativo\", \"value\": 3 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + cork + "\", \"requiredQuantity\": 2 }")
+                    .when()
+                    .post("/products/" + ring + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          // product_availability is refreshed in the background after the writes
+          Integer units = null;
+          for (int attempt = 0; attempt < 50 && !Integer.valueOf(3).equals(units); attempt++) {
+               Thread.sleep(200);
+               units = given()
+                         .queryParam("fields", "id,maxUnits")
+                         .queryParam("limit", 500)
+                         .when()
+                         .get("/products")
+                         .then()
+                         .statusCode(200)
+                         .extract()
+                         .path("find { it.id == '" + ring + "' }.maxUnits");
+          }
+          assertEquals(3, units);
+
+          given()
+                    .queryParam("fields", "id")
+                    .queryParam("minUnits", 4)
+                    .queryParam("limit", 500)
+                    .when()
+                    .get("/products")
+                    .then()
+                    .statusCode(200)
+                    .body("id", not(hasItem(ring)));
+     }
+}
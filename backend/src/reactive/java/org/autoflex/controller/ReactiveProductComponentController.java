@@ -0,0 +1,18 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * {@link ProductComponentController} for the reactive build. Sub-assemblies
+ * have no reactive service, so every endpoint stays on the worker pool.
+ */
+@Path("/products/{productId}/components")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "reactive")
+public class ReactiveProductComponentController extends ProductComponentController {
+}
@@ -0,0 +1,141 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.autoflex.dto.ProductRequestDto;
+import org.autoflex.dto.ProductionOrderRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.services.BulkImportServices;
+import org.autoflex.services.ExportServices;
+import org.autoflex.services.ProductServices;
+import org.autoflex.services.ReactiveProductServices;
+import org.autoflex.services.StockMovementServices;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * {@link ProductController} for the reactive build: CRUD runs on the event
+ * loop over the reactive SQL client. Bulk import, export, keyset pages and
+ * production orders return plain {@link Response}s and so still run on
+ * the worker pool, on the blocking services.
+ */
+@Path("/products")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "reactive")
+public class ReactiveProductController {
+
+    @Inject
+    ReactiveProductServices reactiveProductServices;
+
+    @Inject
+    ProductServices productServices;
+
+    @Inject
+    ExportServices exportServices;
+
+    @Inject
+    BulkImportServices bulkImportServices;
+
+    @Inject
+    StockMovementServices stockMovementServices;
+
+    @POST
+    public Uni<Response> create(@Valid ProductRequestDto requestDto) {
+        return reactiveProductServices.create(requestDto)
+                .map(response -> Response.status(Response.Status.CREATED).entity(response).build());
+    }
+
+    @POST
+    @Path("/bulk")
+    public Response bulkImport(List<ProductRequestDto> rows) {
+        var response = bulkImportServices.importProducts(BulkImportServices.rows(rows));
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/bulk")
+    @Consumes(ExportServices.NDJSON)
+    public Response bulkImportNdjson(InputStream body) {
+        var response = bulkImportServices.importProducts(bulkImportServices.ndjsonRows(body, ProductRequestDto.class));
+        return Response.ok(response).build();
+    }
+
+    /** The full list is read without blocking; keyset pages are handed to a worker thread. */
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.PRODUCT_AVAILABILITY})
+    public Uni<Response> findAll(@QueryParam("cursor") String cursor,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort,
+            @QueryParam("fields") String fields,
+            @QueryParam("minUnits") @Min(value = 0, message = "minUnits cannot be negative") Integer minUnits) {
+        if (cursor == null && limit == null && sort == null && fields == null && minUnits == null) {
+            return reactiveProductServices.findAll()
+                    .map(response -> Response.ok(response).build());
+        }
+        return Uni.createFrom()
+                .item(() -> QuarkusTransaction.requiringNew().call(() -> productServices.findPage(cursor, limit, sort, fields, minUnits)))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .map(page -> Response.ok(page.items())
+                        .header("X-Next-Cursor", page.nextCursor())
+                        .build());
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(ExportServices.NDJSON)
+    public Response export() {
+        StreamingOutput stream = exportServices::exportProducts;
+        return Response.ok(stream).build();
+    }
+
+    @GET
+    @ConditionalGet(CatalogTable.PRODUCTS)
+    @Path("/{id}")
+    public Uni<Response> findById(@PathParam("id") String id) {
+        return reactiveProductServices.findById(id)
+                .map(response -> Response.ok(response).build());
+    }
+
+    @PUT
+    @Path("/{id}")
+    public Uni<Response> update(@PathParam("id") String id, @Valid ProductRequestDto requestDto) {
+        return reactiveProductServices.update(id, requestDto)
+                .map(response -> Response.ok(response).build());
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public Uni<Response> delete(@PathParam("id") String id) {
+        return reactiveProductServices.delete(id)
+                .map(ignored -> Response.noContent().build());
+    }
+
+    @POST
+    @Path("/{id}/produce")
+    public Response produce(@PathParam("id") String id,
+            @QueryParam("quantity") @DefaultValue("1") @Min(value = 1, message = "Quantity must be at least 1")
+            @Max(value = ProductionOrderRequestDto.MAX_QUANTITY, message = "Quantity must be at most "
+                    + ProductionOrderRequestDto.MAX_QUANTITY) int quantity) {
+        var response = stockMovementServices.produce(id, quantity);
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/produce")
+    public Response produceAll(@Valid List<@Valid ProductionOrderRequestDto> orders) {
+        var response = stockMovementServices.produceAll(orders);
+        return Response.ok(response).build();
+    }
+}
@@ -0,0 +1,111 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.autoflex.dto.ProductMaterialBulkRowDto;
+import org.autoflex.dto.ProductMaterialRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.services.BomExplosionServices;
+import org.autoflex.services.BulkImportServices;
+import org.autoflex.services.ExportServices;
+import org.autoflex.services.ProductMaterialServices;
+import org.autoflex.services.ReactiveProductMaterialServices;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.autoflex.controller.ProductMaterialController.ALL_PRODUCTS;
+
+/**
+ * {@link ProductMaterialController} for the reactive build: linking,
+ * listing and unlinking run on the event loop; bulk import and export
+ * stay on the worker pool.
+ */
+@Path("/products/{productId}/materials")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "reactive")
+public class ReactiveProductMaterialController {
+
+    @Inject
+    ReactiveProductMaterialServices reactiveProductMaterialServices;
+
+    @Inject
+    BomExplosionServices bomExplosionServices;
+
+    @Inject
+    ExportServices exportServices;
+
+    @Inject
+    BulkImportServices bulkImportServices;
+
+    @POST
+    public Uni<Response> addMaterial(@PathParam("productId") String productId,
+            @Valid ProductMaterialRequestDto requestDto) {
+        return reactiveProductMaterialServices.addMaterial(productId, requestDto)
+                .map(response -> Response.status(Response.Status.CREATED).entity(response).build());
+    }
+
+    @POST
+    @Path("/bulk")
+    public Response bulkImport(@PathParam("productId") String productId,
+            List<ProductMaterialBulkRowDto> rows) {
+        var response = bulkImportServices.importProductMaterials(
+                ProductMaterialController.withProduct(productId, BulkImportServices.rows(rows)));
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/bulk")
+    @Consumes(ExportServices.NDJSON)
+    public Response bulkImportNdjson(@PathParam("productId") String productId, InputStream body) {
+        var response = bulkImportServices.importProductMaterials(ProductMaterialController.withProduct(
+                productId, bulkImportServices.ndjsonRows(body, ProductMaterialBulkRowDto.class)));
+        return Response.ok(response).build();
+    }
+
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS})
+    public Uni<Response> listByProduct(@PathParam("productId") String productId, @QueryParam("ids") String ids) {
+        var lines = ALL_PRODUCTS.equals(productId)
+                ? reactiveProductMaterialServices.listByProducts(ProductMaterialServices.parseProductIds(ids))
+                : reactiveProductMaterialServices.listByProduct(productId);
+        return lines.map(response -> Response.ok(response).build());
+    }
+
+    /**
+     * The BOM flattened to raw materials through every level of
+     * sub-assemblies, with the total quantity needed for one unit.
+     */
+    @GET
+    @Path("/exploded")
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    public Response explodedBom(@PathParam("productId") String productId) {
+        var response = bomExplosionServices.explodedBom(productId);
+        return Response.ok(response).build();
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(ExportServices.NDJSON)
+    public Response export(@PathParam("productId") String productId) {
+        String filter = ALL_PRODUCTS.equals(productId) ? null : productId;
+        StreamingOutput stream = out -> exportServices.exportProductMaterials(filter, out);
+        return Response.ok(stream).build();
+    }
+
+    @DELETE
+    @Path("/{rawMaterialId}")
+    public Uni<Response> removeMaterial(@PathParam("productId") String productId,
+            @PathParam("rawMaterialId") String rawMaterialId) {
+        return reactiveProductMaterialServices.removeMaterial(productId, rawMaterialId)
+                .map(ignored -> Response.noContent().build());
+    }
+}
@@ -0,0 +1,245 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.autoflex.dto.CatalogUpdateDto;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.dto.ScenarioRequestDto;
+import org.autoflex.dto.StockAdjustmentRequestDto;
+import org.autoflex.dto.StockMovementRequestDto;
+import org.autoflex.events.CatalogTable;
+import org.autoflex.planning.GreedyPlanner;
+import org.autoflex.services.BulkImportServices;
+import org.autoflex.services.CatalogStreamServices;
+import org.autoflex.services.ExportServices;
+import org.autoflex.services.ProductMaterialServices;
+import org.autoflex.services.ProductionServices;
+import org.autoflex.services.RawMaterialServices;
+import org.autoflex.services.StockLedgerServices;
+import org.autoflex.services.ReactiveRawMaterialServices;
+import org.autoflex.services.WhereUsedServices;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * {@link RawMaterialController} for the reactive build: CRUD and stock
+ * movements run on the event loop over the reactive SQL client. Bulk
+ * import, export, keyset pages and the in-memory planning and where-used
+ * endpoints return plain {@link Response}s and so still run on the worker
+ * pool, on the blocking services.
+ */
+@Path("/raw-materials")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "autoflex.rest.stack", stringValue = "reactive")
+public class ReactiveRawMaterialController {
+
+    @Inject
+    ReactiveRawMaterialServices reactiveRawMaterialServices;
+
+    @Inject
+    RawMaterialServices rawMaterialServices;
+
+    @Inject
+    ExportServices exportServices;
+
+    @Inject
+    BulkImportServices bulkImportServices;
+
+    @Inject
+    ProductionServices productionServices;
+
+    @Inject
+    ProductMaterialServices productMaterialServices;
+
+    @Inject
+    WhereUsedServices whereUsedServices;
+
+    @Inject
+    StockLedgerServices stockLedgerServices;
+
+    @Inject
+    CatalogStreamServices catalogStreamServices;
+
+    @POST
+    public Uni<Response> create(@Valid RawMaterialRequestDto requestDto) {
+        return reactiveRawMaterialServices.create(requestDto)
+                .map(response -> Response.status(Response.Status.CREATED).entity(response).build());
+    }
+
+    @POST
+    @Path("/bulk")
+    public Response bulkImport(List<RawMaterialRequestDto> rows) {
+        var response = bulkImportServices.importRawMaterials(BulkImportServices.rows(rows));
+        return Response.ok(response).build();
+    }
+
+    @POST
+    @Path("/bulk")
+    @Consumes(ExportServices.NDJSON)
+    public Response bulkImportNdjson(InputStream body) {
+        var response = bulkImportServices.importRawMaterials(bulkImportServices.ndjsonRows(body, RawMaterialRequestDto.class));
+        return Response.ok(response).build();
+    }
+
+    /** The full list is read without blocking; keyset pages are handed to a worker thread. */
+    @GET
+    @ConditionalGet(CatalogTable.RAW_MATERIALS)
+    public Uni<Response> findAll(@QueryParam("cursor") String cursor,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort,
+            @QueryParam("fields") String fields) {
+        if (cursor == null && limit == null && sort == null && fields == null) {
+            return reactiveRawMaterialServices.findAll()
+                    .map(response -> Response.ok(response).build());
+        }
+        return Uni.createFrom()
+                .item(() -> QuarkusTransaction.requiringNew().call(() -> rawMaterialServices.findPage(cursor, limit, sort, fields)))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .map(page -> Response.ok(page.items())
+                        .header("X-Next-Cursor", page.nextCursor())
+                        .build());
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(ExportServices.NDJSON)
+    public Response export() {
+        StreamingOutput stream = exportServices::exportRawMaterials;
+        return Response.ok(stream).build();
+    }
+
+    @GET
+    @ConditionalGet(CatalogTable.RAW_MATERIALS)
+    @Path("/{id}")
+    public Uni<Response> findById(@PathParam("id") String id) {
+        return reactiveRawMaterialServices.findById(id)
+                .map(response -> Response.ok(response).build());
+    }
+
+    @PUT
+    @Path("/{id}")
+    public Uni<Response> update(@PathParam("id") String id,
+            @Valid RawMaterialRequestDto requestDto) {
+        return reactiveRawMaterialServices.update(id, requestDto)
+                .map(response -> Response.ok(response).build());
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public Uni<Response> delete(@PathParam("id") String id) {
+        return reactiveRawMaterialServices.delete(id)
+                .map(ignored -> Response.noContent().build());
+    }
+
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    @Path("/{id}/used-by")
+    public Response usedBy(@PathParam("id") String id, @QueryParam("consistent") boolean consistent) {
+        var response = consistent
+                ? productMaterialServices.listByRawMaterial(id)
+                : whereUsedServices.usedBy(id);
+        return Response.ok(response).build();
+    }
+
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    @Path("/{id}/at-risk")
+    public Response atRisk(@PathParam("id") String id) {
+        var response = whereUsedServices.atRiskRevenue(id);
+        return Response.ok(response).build();
+    }
+
+    // Stock movements: atomic, safe under concurrent writers
+
+    @GET
+    @ConditionalGet(CatalogTable.RAW_MATERIALS)
+    @Path("/{id}/stock")
+    public Uni<Response> findStock(@PathParam("id") String id, @QueryParam("at") String at) {
+        if (at == null) {
+            return reactiveRawMaterialServices.findStock(id)
+                    .map(response -> Response.ok(response).build());
+        }
+        Instant moment = StockLedgerServices.parseInstant(at);
+        return Uni.createFrom()
+                .item(() -> QuarkusTransaction.requiringNew().call(() -> stockLedgerServices.stockAt(id, moment)))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .map(response -> Response.ok(response).build());
+    }
+
+    @POST
+    @Path("/{id}/stock/reserve")
+    public Uni<Response> reserve(@PathParam("id") String id, @Valid StockMovementRequestDto requestDto) {
+        return reactiveRawMaterialServices.reserve(id, requestDto.quantity())
+                .map(response -> Response.ok(response).build());
+    }
+
+    @POST
+    @Path("/{id}/stock/release")
+    public Uni<Response> release(@PathParam("id") String id, @Valid StockMovementRequestDto requestDto) {
+        return reactiveRawMaterialServices.release(id, requestDto.quantity())
+                .map(response -> Response.ok(response).build());
+    }
+
+    @POST
+    @Path("/{id}/stock/consume")
+    public Uni<Response> consume(@PathParam("id") String id, @Valid StockMovementRequestDto requestDto) {
+        return reactiveRawMaterialServices.consume(id, requestDto.quantity())
+                .map(response -> Response.ok(response).build());
+    }
+
+    @POST
+    @Path("/{id}/stock/adjust")
+    public Uni<Response> adjust(@PathParam("id") String id, @Valid StockAdjustmentRequestDto requestDto) {
+        return reactiveRawMaterialServices.adjust(id, requestDto.delta())
+                .map(response -> Response.ok(response).build());
+    }
+
+    @GET
+    @ConditionalGet({CatalogTable.PRODUCTS, CatalogTable.RAW_MATERIALS, CatalogTable.PRODUCT_MATERIALS,
+            CatalogTable.PRODUCT_COMPONENTS})
+    @Path("/production-suggestion")
+    public Response suggestProduction(@QueryParam("strategy") @DefaultValue(GreedyPlanner.NAME) String strategy,
+                                      @QueryParam("asOf") String asOf) {
+        var snapshot = asOf == null
+                ? productionServices.suggestProduction(strategy)
+                : productionServices.suggestProduction(strategy, StockLedgerServices.parseInstant(asOf));
+        return Response.ok(snapshot.result())
+                .header("X-Catalog-Version", snapshot.version())
+                .build();
+    }
+
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<CatalogUpdateDto> stream() {
+        return catalogStreamServices.updates();
+    }
+
+    @POST
+    @Path("/production-suggestion/scenarios")
+    public Response evaluateScenarios(@QueryParam("strategy") @DefaultValue(GreedyPlanner.NAME) String strategy,
+            @Valid @NotNull @Size(max = ProductionServices.MAX_SCENARIOS) List<@Valid ScenarioRequestDto> scenarios) {
+        var snapshot = productionServices.evaluateScenarios(strategy, scenarios);
+        return Response.ok(snapshot.results())
+                .header("X-Catalog-Version", snapshot.version())
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.autoflex.dto.ProductMaterialRequestDto;
+import org.autoflex.dto.ProductMaterialResponseDto;
+import org.autoflex.entities.UuidStringJavaType;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Non-blocking counterpart of {@link ProductMaterialServices} for the reactive build. */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class ReactiveProductMaterialServices {
+
+    /**
+     * Upserts the link only if both ends exist, versions it in the history,
+     * and returns it with both names, in a single statement.
+     */
+    private static final String UPSERT = "with link as ("
+            + "  insert into product_materials (product_id, raw_material_id, required_quantity)"
+            + "  select p.id, rm.id, $3 from products p, raw_materials rm where p.id = $1 and rm.id = $2"
+            + "  on conflict (product_id, raw_material_id) do update set required_quantity = excluded.required_quantity"
+            + "  returning product_id, raw_material_id, required_quantity), "
+            + "closed as (update product_materials_history h set valid_to = current_timestamp from link"
+            + "  where h.product_id = link.product_id and h.raw_material_id = link.raw_material_id"
+            + "  and h.valid_to is null), "
+            + "opened as (insert into product_materials_history"
+            + "  (id, product_id, raw_material_id, required_quantity, valid_from)"
+            + "  select nextval('catalog_history_seq'), product_id, raw_material_id, required_quantity,"
+            + "  current_timestamp from link) "
+            + "select p.id as product_id, p.name as product_name, rm.id as raw_material_id, "
+            + "rm.name as raw_material_name, link.required_quantity "
+            + "from link join products p on p.id = link.product_id join raw_materials rm on rm.id = link.raw_material_id";
+
+    private static final String BOM_SELECT = "select p.id as product_id, p.name as product_name, "
+            + "rm.id as raw_material_id, rm.name as raw_material_name, pm.required_quantity "
+            + "from product_materials pm join products p on p.id = pm.product_id "
+            + "join raw_materials rm on rm.id = pm.raw_material_id ";
+
+    private static final String BOM_LINES = BOM_SELECT + "where pm.product_id = $1 order by rm.name, rm.id";
+
+    private static final String BATCH_ORDER = "order by p.name, p.id, rm.name, rm.id";
+
+    @Inject
+    Pool client;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    /** Associate a raw material to a product (or update the required quantity). */
+    public Uni<ProductMaterialResponseDto> addMaterial(String productId, ProductMaterialRequestDto request) {
+        UUID product = UuidStringJavaType.toUuid(productId);
+        return client.withTransaction(connection -> connection.preparedQuery(ReactiveProductServices.LOCK_PRODUCT)
+                        .execute(Tuple.of(product))
+                        .chain(() -> connection.preparedQuery(UPSERT)
+                                .execute(Tuple.of(product,
+                                        UuidStringJavaType.toUuid(request.rawMaterialId()),
+                                        request.requiredQuantity()))))
+                .chain(rows -> rows.rowCount() > 0
+                        ? Uni.createFrom().item(toResponse(rows.iterator().next()))
+                        : missingEnd(productId, request.rawMaterialId()))
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.bomLine(productId, request.rawMaterialId())));
+    }
+
+    public Uni<List<ProductMaterialResponseDto>> listByProduct(String productId) {
+        UUID product = UuidStringJavaType.toUuid(productId);
+        return client.preparedQuery(BOM_LINES)
+                .execute(Tuple.of(product))
+                .chain(rows -> rows.rowCount() > 0
+                        ? Uni.createFrom().item(rows.stream().map(ReactiveProductMaterialServices::toResponse).toList())
+                        : exists("products", product).map(found -> {
+                            if (!found) {
+                                throw new NotFoundException("Product not found with id: " + productId);
+                            }
+                            return List.<ProductMaterialResponseDto>of();
+                        }));
+    }
+
+    /** BOM lines of many products, or of every product when {@code productIds} is {@code null}. */
+    public Uni<List<ProductMaterialResponseDto>> listByProducts(List<String> productIds) {
+        if (productIds != null && productIds.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        var query = productIds == null
+                ? client.query(BOM_SELECT + BATCH_ORDER).execute()
+                : client.preparedQuery(BOM_SELECT + "where pm.product_id = any($1) " + BATCH_ORDER)
+                        .execute(Tuple.of(productIds.stream().map(UuidStringJavaType::toUuid).toArray(UUID[]::new)));
+        return query.map(rows -> rows.stream().map(ReactiveProductMaterialServices::toResponse).toList());
+    }
+
+    /** Remove the link between a product and a specific raw material. */
+    public Uni<Void> removeMaterial(String productId, String rawMaterialId) {
+        UUID product = UuidStringJavaType.toUuid(productId);
+        return client.withTransaction(connection -> connection.preparedQuery(ReactiveProductServices.LOCK_PRODUCT)
+                        .execute(Tuple.of(product))
+                        .chain(() -> connection.preparedQuery("with changed as (delete from product_materials "
+                                        + "where product_id = $1 and raw_material_id = $2 "
+                                        + "returning product_id, raw_material_id), "
+                                        + "closed as (update product_materials_history h set valid_to = current_timestamp "
+                                        + "from changed where h.product_id = changed.product_id "
+                                        + "and h.raw_material_id = changed.raw_material_id and h.valid_to is null) "
+                                        + "select product_id from changed")
+                                .execute(Tuple.of(product, UuidStringJavaType.toUuid(rawMaterialId)))))
+                .map(rows -> {
+                    if (rows.rowCount() == 0) {
+                        throw new NotFoundException("Association not found for product " + productId
+                                + " and raw material " + rawMaterialId);
+                    }
+                    return null;
+                })
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.bomLine(productId, rawMaterialId)))
+                .replaceWithVoid();
+    }
+
+    /** Fails with the 404 the blocking implementation would give. */
+    private Uni<ProductMaterialResponseDto> missingEnd(String productId, String rawMaterialId) {
+        return exists("products", UuidStringJavaType.toUuid(productId)).map(found -> {
+            if (!found) {
+                throw new NotFoundException("Product not found with id: " + productId);
+            }
+            throw new NotFoundException("Raw material not found with id: " + rawMaterialId);
+        });
+    }
+
+    private Uni<Boolean> exists(String table, UUID id) {
+        return client.preparedQuery("select 1 from " + table + " where id = $1")
+                .execute(Tuple.of(id))
+                .map(rows -> rows.rowCount() > 0);
+    }
+
+    private static ProductMaterialResponseDto toResponse(Row row) {
+        return new ProductMaterialResponseDto(
+                row.getUUID("product_id").toString(),
+                row.getString("product_name"),
+                row.getUUID("raw_material_id").toString(),
+                row.getString("raw_material_name"),
+                row.getInteger("required_quantity"));
+    }
+}
@@ -0,0 +1,143 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.ProductRequestDto;
+import org.autoflex.dto.ProductResponseDto;
+import org.autoflex.entities.UuidStringJavaType;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.hibernate.id.uuid.UuidVersion7Strategy;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Non-blocking counterpart of {@link ProductServices} for the reactive build. */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class ReactiveProductServices {
+
+    /** Opens a history version for every product returned by the {@code changed} CTE. */
+    private static final String HISTORY_OPEN = "opened as (insert into products_history "
+            + "(id, product_id, name, value, valid_from) "
+            + "select nextval('catalog_history_seq'), id, name, value, current_timestamp from changed) ";
+
+    /** Closes the current versions of a deleted product and of its BOM and sub-assembly lines. */
+    private static final String HISTORY_CLOSE_PRODUCT = "with closed_product as ("
+            + "update products_history set valid_to = current_timestamp where product_id = $1 and valid_to is null), "
+            + "closed_materials as (update product_materials_history set valid_to = current_timestamp "
+            + "where product_id = $1 and valid_to is null) "
+            + "update product_components_history set valid_to = current_timestamp "
+            + "where product_id = $1 and valid_to is null";
+
+    /**
+     * Taken first, in the same transaction, by every write that versions a
+     * product or its lines: the next statement then sees the version a
+     * concurrent writer opened, as in {@link CatalogHistoryServices}.
+     */
+    static final String LOCK_PRODUCT = "select id from products where id = $1 for update";
+
+    @Inject
+    Pool client;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    public Uni<ProductResponseDto> create(ProductRequestDto request) {
+        UUID id = UuidVersion7Strategy.INSTANCE.generateUuid(null);
+        return client.preparedQuery("with changed as (insert into products (id, name, value) "
+                        + "values ($1, $2, $3) returning id, name, value), "
+                        + HISTORY_OPEN
+                        + "select id, name, value from changed")
+                .execute(Tuple.of(id, request.name(), request.value()))
+                .map(rows -> toResponse(rows.iterator().next()))
+                .invoke(product -> catalogChanged.fire(CatalogChangedEvent.product(product.id())));
+    }
+
+    public Uni<List<ProductResponseDto>> findAll() {
+        return client.query("select id, name, value from products")
+                .execute()
+                .map(rows -> rows.stream().map(ReactiveProductServices::toResponse).toList());
+    }
+
+    public Uni<ProductResponseDto> findById(String id) {
+        return client.preparedQuery("select id, name, value from products where id = $1")
+                .execute(Tuple.of(UuidStringJavaType.toUuid(id)))
+                .map(rows -> {
+                    if (rows.rowCount() == 0) {
+                        throw new NotFoundException("Product not found with id: " + id);
+                    }
+                    return toResponse(rows.iterator().next());
+                });
+    }
+
+    public Uni<ProductResponseDto> update(String id, ProductRequestDto request) {
+        UUID uuid = UuidStringJavaType.toUuid(id);
+        return client.withTransaction(connection -> connection.preparedQuery(LOCK_PRODUCT)
+                        .execute(Tuple.of(uuid))
+                        .chain(() -> connection.preparedQuery("with changed as (update products "
+                                        + "set name = $2, value = $3 where id = $1 returning id, name, value), "
+                                        + "closed as (update products_history h set valid_to = current_timestamp "
+                                        + "from changed where h.product_id = changed.id and h.valid_to is null), "
+                                        + HISTORY_OPEN
+                                        + "select id, name, value from changed")
+                                .execute(Tuple.of(uuid, request.name(), request.value()))))
+                .map(rows -> {
+                    if (rows.rowCount() == 0) {
+                        throw new NotFoundException("Product not found with id: " + id);
+                    }
+                    return toResponse(rows.iterator().next());
+                })
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.product(id)));
+    }
+
+    /**
+     * Deletes the product together with its BOM lines, in one transaction;
+     * 409 while other products use it as a sub-assembly.
+     */
+    public Uni<Void> delete(String id) {
+        UUID uuid = UuidStringJavaType.toUuid(id);
+        return client.withTransaction(connection -> connection
+                        .preparedQuery("select count(*) from product_components where component_id = $1")
+                        .execute(Tuple.of(uuid))
+                        .invoke(rows -> {
+                            long assemblies = rows.iterator().next().getLong(0);
+                            if (assemblies > 0) {
+                                throw new ClientErrorException("Product " + id + " is a component of "
+                                        + assemblies + " other product(s)", Response.Status.CONFLICT);
+                            }
+                        })
+                        .chain(() -> connection.preparedQuery("delete from product_materials where product_id = $1")
+                                .execute(Tuple.of(uuid)))
+                        .chain(() -> connection.preparedQuery("delete from product_components where product_id = $1")
+                                .execute(Tuple.of(uuid)))
+                        .chain(() -> connection.preparedQuery("delete from products where id = $1")
+                                .execute(Tuple.of(uuid)))
+                        .map(rows -> {
+                            if (rows.rowCount() == 0) {
+                                throw new NotFoundException("Product not found with id: " + id);
+                            }
+                            return null;
+                        })
+                        .chain(() -> connection.preparedQuery(HISTORY_CLOSE_PRODUCT)
+                                .execute(Tuple.of(uuid))))
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.product(id)))
+                .replaceWithVoid();
+    }
+
+    private static ProductResponseDto toResponse(Row row) {
+        return new ProductResponseDto(
+                row.getUUID("id").toString(),
+                row.getString("name"),
+                row.getInteger("value"));
+    }
+}
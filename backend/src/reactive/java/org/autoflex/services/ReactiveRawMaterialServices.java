@@ -0,0 +1,202 @@
+package org.autoflex.services;
+
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import io.vertx.pgclient.PgException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.dto.RawMaterialResponseDto;
+import org.autoflex.dto.StockLevelDto;
+import org.autoflex.entities.StockMovementReason;
+import org.autoflex.entities.UuidStringJavaType;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.metrics.MetricNames;
+import org.hibernate.id.uuid.UuidVersion7Strategy;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link RawMaterialServices} and of the stock
+ * movements of {@link StockMovementServices}, for the reactive build.
+ * Movements are the same single conditional {@code UPDATE}s, returning the
+ * new stock position in the same round trip. Each write appends its
+ * {@code stock_movements} row in that same statement, through a
+ * data-modifying {@code WITH}, as {@link StockLedgerServices} does for the
+ * blocking services.
+ */
+@ApplicationScoped
+@Timed(MetricNames.SERVICE)
+public class ReactiveRawMaterialServices {
+
+    /** PostgreSQL SQLSTATE for a foreign key violation. */
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    private static final String STOCK_COLUMNS = " returning id, stock_quantity, reserved_quantity";
+
+    /** Appends one ledger row per row of {@code changed}; the caller supplies the select list's tail. */
+    private static final String LEDGER_INSERT = "logged as (insert into stock_movements "
+            + "(id, raw_material_id, stock_delta, reserved_delta, reason, occurred_at) "
+            + "select nextval('stock_movements_seq'), id, ";
+
+    @Inject
+    Pool client;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    public Uni<RawMaterialResponseDto> create(RawMaterialRequestDto request) {
+        UUID id = UuidVersion7Strategy.INSTANCE.generateUuid(null);
+        return client.preparedQuery("with changed as (insert into raw_materials (id, name, stock_quantity) "
+                        + "values ($1, $2, $3) returning id, name, stock_quantity), "
+                        + LEDGER_INSERT + "stock_quantity, 0, 'CREATE', current_timestamp from changed) "
+                        + "select id, name, stock_quantity from changed")
+                .execute(Tuple.of(id, request.name(), request.stockQuantity()))
+                .map(rows -> toResponse(rows.iterator().next()))
+                .invoke(rawMaterial -> catalogChanged.fire(CatalogChangedEvent.rawMaterial(rawMaterial.id())));
+    }
+
+    public Uni<List<RawMaterialResponseDto>> findAll() {
+        return client.query("select id, name, stock_quantity from raw_materials")
+                .execute()
+                .map(rows -> rows.stream().map(ReactiveRawMaterialServices::toResponse).toList());
+    }
+
+    public Uni<RawMaterialResponseDto> findById(String id) {
+        return client.preparedQuery("select id, name, stock_quantity from raw_materials where id = $1")
+                .execute(Tuple.of(UuidStringJavaType.toUuid(id)))
+                .map(rows -> {
+                    if (rows.rowCount() == 0) {
+                        throw notFound(id);
+                    }
+                    return toResponse(rows.iterator().next());
+                });
+    }
+
+    /**
+     * Checks the reservations and writes in one statement, so a concurrent
+     * stock movement can never be overwritten. The row is locked first to
+     * read the stock being replaced, for the ledger.
+     */
+    public Uni<RawMaterialResponseDto> update(String id, RawMaterialRequestDto request) {
+        return client.preparedQuery("with previous as (select id, stock_quantity from raw_materials "
+                        + "where id = $1 for update), "
+                        + "changed as (update raw_materials rm set name = $2, stock_quantity = $3, "
+                        + "version = rm.version + 1 from previous "
+                        + "where rm.id = previous.id and rm.reserved_quantity <= $3 "
+                        + "returning rm.id, rm.name, rm.stock_quantity, "
+                        + "rm.stock_quantity - previous.stock_quantity as stock_delta), "
+                        + LEDGER_INSERT + "stock_delta, 0, 'SET', current_timestamp from changed "
+                        + "where stock_delta <> 0) "
+                        + "select id, name, stock_quantity from changed")
+                .execute(Tuple.of(UuidStringJavaType.toUuid(id), request.name(), request.stockQuantity()))
+                .chain(rows -> rows.rowCount() > 0
+                        ? Uni.createFrom().item(toResponse(rows.iterator().next()))
+                        : findStock(id).map(stock -> {
+                            throw new ClientErrorException("Stock quantity cannot be lower than the reserved quantity "
+                                    + stock.reservedQuantity(), Response.Status.CONFLICT);
+                        }))
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.rawMaterial(id)));
+    }
+
+    public Uni<Void> delete(String id) {
+        return client.preparedQuery("with changed as (delete from raw_materials where id = $1"
+                        + STOCK_COLUMNS + "), "
+                        + LEDGER_INSERT + "-stock_quantity, -reserved_quantity, 'DELETE', current_timestamp "
+                        + "from changed) "
+                        + "select id from changed")
+                .execute(Tuple.of(UuidStringJavaType.toUuid(id)))
+                .onFailure(e -> e instanceof PgException pg && FOREIGN_KEY_VIOLATION.equals(pg.getSqlState()))
+                .transform(e -> new ClientErrorException("Raw material " + id + " is used by a bill of materials",
+                        Response.Status.CONFLICT))
+                .map(rows -> {
+                    if (rows.rowCount() == 0) {
+                        throw notFound(id);
+                    }
+                    return null;
+                })
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.rawMaterial(id)))
+                .replaceWithVoid();
+    }
+
+    public Uni<StockLevelDto> findStock(String id) {
+        return client.preparedQuery("select id, stock_quantity, reserved_quantity from raw_materials where id = $1")
+                .execute(Tuple.of(UuidStringJavaType.toUuid(id)))
+                .map(rows -> {
+                    if (rows.rowCount() == 0) {
+                        throw notFound(id);
+                    }
+                    return toStockLevel(rows.iterator().next());
+                });
+    }
+
+    public Uni<StockLevelDto> reserve(String id, int quantity) {
+        return move(id, quantity, "update raw_materials "
+                        + "set reserved_quantity = reserved_quantity + $2, version = version + 1 "
+                        + "where id = $1 and stock_quantity - reserved_quantity >= $2",
+                "0, $2", StockMovementReason.RESERVE, "Not enough available stock to reserve " + quantity);
+    }
+
+    public Uni<StockLevelDto> release(String id, int quantity) {
+        return move(id, quantity, "update raw_materials "
+                        + "set reserved_quantity = reserved_quantity - $2, version = version + 1 "
+                        + "where id = $1 and reserved_quantity >= $2",
+                "0, -$2", StockMovementReason.RELEASE, "Cannot release more than the reserved quantity");
+    }
+
+    public Uni<StockLevelDto> consume(String id, int quantity) {
+        return move(id, quantity, "update raw_materials "
+                        + "set stock_quantity = stock_quantity - $2, reserved_quantity = reserved_quantity - $2, "
+                        + "version = version + 1 "
+                        + "where id = $1 and reserved_quantity >= $2",
+                "-$2, -$2", StockMovementReason.CONSUME, "Cannot consume more than the reserved quantity");
+    }
+
+    public Uni<StockLevelDto> adjust(String id, int delta) {
+        return move(id, delta, "update raw_materials "
+                        + "set stock_quantity = stock_quantity + $2, version = version + 1 "
+                        + "where id = $1 and stock_quantity + $2 >= reserved_quantity",
+                "$2, 0", StockMovementReason.ADJUST, "Not enough available stock to adjust by " + delta);
+    }
+
+    /** @param deltas the ledger's {@code stock_delta, reserved_delta} in terms of {@code $2} */
+    private Uni<StockLevelDto> move(String id, int quantity, String update, String deltas,
+                                    StockMovementReason reason, String conflictMessage) {
+        return client.preparedQuery("with changed as (" + update + STOCK_COLUMNS + "), "
+                        + LEDGER_INSERT + deltas + ", '" + reason + "', current_timestamp from changed) "
+                        + "select id, stock_quantity, reserved_quantity from changed")
+                .execute(Tuple.of(UuidStringJavaType.toUuid(id), quantity))
+                .chain(rows -> rows.rowCount() > 0
+                        ? Uni.createFrom().item(toStockLevel(rows.iterator().next()))
+                        // Either the row is missing or the condition failed; tell them apart
+                        : findStock(id).map(stock -> {
+                            throw new ClientErrorException(conflictMessage, Response.Status.CONFLICT);
+                        }))
+                .invoke(() -> catalogChanged.fire(CatalogChangedEvent.rawMaterial(id)));
+    }
+
+    private static NotFoundException notFound(String id) {
+        return new NotFoundException("Raw material not found with id: " + id);
+    }
+
+    private static RawMaterialResponseDto toResponse(Row row) {
+        return new RawMaterialResponseDto(
+                row.getUUID("id").toString(),
+                row.getString("name"),
+                row.getInteger("stock_quantity"));
+    }
+
+    private static StockLevelDto toStockLevel(Row row) {
+        int stock = row.getInteger("stock_quantity");
+        int reserved = row.getInteger("reserved_quantity");
+        return new StockLevelDto(row.getUUID("id").toString(), stock, reserved, stock - reserved);
+    }
+}
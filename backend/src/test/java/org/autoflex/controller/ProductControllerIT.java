@@ -2,10 +2,19 @@ package org.autoflex.controller;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import org.autoflex.services.ProductMaterialServices;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -156,4 +165,432 @@ class ProductControllerIT {
                     .then()
                     .statusCode(404);
      }
+
+     // GET /products?limit=&sort=&fields=
+
+     @Test
+     @Order(10)
+     @DisplayName("GET /products?limit=1&fields=id,name → 200 com uma página projetada e cursor")
+     void findAll_ShouldReturnProjectedPage_WhenPaginated() {
+          for (String name : new String[] { "Arruela", "Bucha" }) {
+               given()
+                         .contentType(ContentType.JSON)
+                         .body("{ \"name\": \"" + name + "\", \"value\": 5 }")
+                         .when()
+                         .post("/products")
+                         .then()
+                         .statusCode(201);
+          }
+
+          String cursor = given()
+                    .when()
+                    .get("/products?limit=1&sort=name&fields=id,name")
+                    .then()
+                    .statusCode(200)
+                    .body("$", hasSize(1))
+                    .body("[0].id", notNullValue())
+                    .body("[0].value", nullValue())
+                    .header("X-Next-Cursor", notNullValue())
+                    .extract()
+                    .header("X-Next-Cursor");
+
+          given()
+                    .when()
+                    .get("/products?limit=1&sort=name&fields=id,name&cursor=" + cursor)
+                    .then()
+                    .statusCode(200)
+                    .body("$", hasSize(1));
+     }
+
+     @Test
+     @Order(11)
+     @DisplayName("GET /products?fields=preco → 400 quando campo não existe")
+     void findAll_ShouldReturn400_WhenFieldIsUnknown() {
+          given()
+                    .when()
+                    .get("/products?fields=preco")
+                    .then()
+                    .statusCode(400);
+     }
+
+     // POST /products/bulk
+
+     @Test
+     @Order(12)
+     @DisplayName("POST /products/bulk → 200 com relatório por linha, sem abortar a carga")
+     void bulkImport_ShouldReportInvalidRows() {
+          String body = """
+                    [
+                      { "name": "Porca M6", "value": 3 },
+                      { "name": "", "value": 3 },
+                      { "name": "Porca M8", "value": 4 }
+                    ]
+                    """;
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .when()
+                    .post("/products/bulk")
+                    .then()
+                    .statusCode(200)
+                    .body("received", equalTo(3))
+                    .body("imported", equalTo(2))
+                    .body("errors", hasSize(1))
+                    .body("errors[0].row", equalTo(2));
+     }
+
+     @Test
+     @Order(13)
+     @DisplayName("POST /products/bulk (NDJSON) → 200 e reporta linha malformada")
+     void bulkImportNdjson_ShouldReportMalformedLine() {
+          String body = "{ \"name\": \"Rebite\", \"value\": 2 }\n{ nope\n";
+
+          given()
+                    .contentType("application/x-ndjson")
+                    .body(body)
+                    .when()
+                    .post("/products/bulk")
+                    .then()
+                    .statusCode(200)
+                    .body("imported", equalTo(1))
+                    .body("errors[0].row", equalTo(2));
+     }
+
+     @Test
+     @Order(14)
+     @DisplayName("POST /products/{id}/materials/bulk → linha de outro produto é reportada como erro")
+     void bulkImportMaterials_ShouldRejectRowsOfAnotherProduct() {
+          String product = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Arruela\", \"value\": 1 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+          String material = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Latão\", \"stockQuantity\": 10 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String body = "[ { \"rawMaterialId\": \"" + material + "\", \"requiredQuantity\": 2 },"
+                    + "  { \"productId\": \"outro-produto\", \"rawMaterialId\": \"" + material + "\", \"requiredQuantity\": 1 } ]";
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .when()
+                    .post("/products/{id}/materials/bulk", product)
+                    .then()
+                    .statusCode(200)
+                    .body("imported", equalTo(1))
+                    .body("errors", hasSize(1))
+                    .body("errors[0].row", equalTo(2));
+     }
+
+     @Test
+     @Order(15)
+     @DisplayName("GET /products com If-None-Match → 304 até o catálogo mudar")
+     void findAll_ShouldAnswerNotModifiedUntilProductsChange() {
+          String etag = given()
+                    .when()
+                    .get("/products")
+                    .then()
+                    .statusCode(200)
+                    .header("ETag", startsWith("W/\""))
+                    .extract()
+                    .header("ETag");
+
+          given()
+                    .header("If-None-Match", etag)
+                    .when()
+                    .get("/products")
+                    .then()
+                    .statusCode(304)
+                    .header("ETag", equalTo(etag));
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Arruela\", \"value\": 1 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .header("If-None-Match", etag)
+                    .when()
+                    .get("/products")
+                    .then()
+                    .statusCode(200)
+                    .header("ETag", not(equalTo(etag)));
+     }
+
+     // Sub-assemblies
+
+     @Test
+     @Order(16)
+     @DisplayName("POST /products/{id}/components → BOM explodida por todos os níveis e ciclo rejeitado com 409")
+     void components_ShouldExplodeNestedBom_AndRejectCycles() {
+          String steel = createMaterial("Aço Carbono");
+          String bike = createProduct("Bicicleta", 900);
+          String wheel = createProduct("Roda", 80);
+
+          addLine(wheel, "materials", "rawMaterialId", steel, 2);
+          addLine(bike, "materials", "rawMaterialId", steel, 5);
+          addLine(bike, "components", "componentId", wheel, 2);
+
+          given()
+                    .when()
+                    .get("/products/{id}/materials/exploded", bike)
+                    .then()
+                    .statusCode(200)
+                    .body("size()", equalTo(1))
+                    .body("[0].rawMaterialId", equalTo(steel))
+                    .body("[0].requiredQuantity", equalTo(9));
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"componentId\": \"" + bike + "\", \"requiredQuantity\": 1 }")
+                    .when()
+                    .post("/products/{id}/components", wheel)
+                    .then()
+                    .statusCode(409);
+
+          given()
+                    .when()
+                    .delete("/products/{id}", wheel)
+                    .then()
+                    .statusCode(409);
+
+          given()
+                    .when()
+                    .delete("/products/{id}/components/{componentId}", bike, wheel)
+                    .then()
+                    .statusCode(204);
+
+          given()
+                    .when()
+                    .get("/products/{id}/materials/exploded", bike)
+                    .then()
+                    .statusCode(200)
+                    .body("[0].requiredQuantity", equalTo(5));
+     }
+
+     @Test
+     @Order(17)
+     @DisplayName("GET /products?minUnits=-1 → 400 quando mínimo é negativo")
+     void findAll_ShouldReturn400_WhenMinUnitsIsNegative() {
+          given()
+                    .when()
+                    .get("/products?sort=-maxUnits&minUnits=-1")
+                    .then()
+                    .statusCode(400);
+     }
+
+     // Batch BOM read
+
+     @Test
+     @Order(18)
+     @DisplayName("GET /products/all/materials?ids= → 200 com as linhas de vários produtos em uma resposta")
+     void listByProducts_ShouldReturnLinesOfManyProducts() {
+          String copper = createMaterial("Cobre em Lote");
+          String tin = createMaterial("Estanho em Lote");
+          String alpha = createProduct("Lote Alfa", 10);
+          String beta = createProduct("Lote Beta", 20);
+          String gamma = createProduct("Lote Gama", 30);
+
+          addLine(alpha, "materials", "rawMaterialId", copper, 2);
+          addLine(alpha, "materials", "rawMaterialId", tin, 1);
+          addLine(beta, "materials", "rawMaterialId", copper, 3);
+          addLine(gamma, "materials", "rawMaterialId", tin, 4);
+
+          given()
+                    .queryParam("ids", alpha + "," + beta + ",id-inexistente")
+                    .when()
+                    .get("/products/all/materials")
+                    .then()
+                    .statusCode(200)
+                    .body("size()", equalTo(3))
+                    .body("productId", everyItem(oneOf(alpha, beta)))
+                    .body("[0].productName", equalTo("Lote Alfa"))
+                    .body("[0].rawMaterialName", equalTo("Cobre em Lote"))
+                    .body("[2].productId", equalTo(beta));
+
+          given()
+                    .when()
+                    .get("/products/all/materials")
+                    .then()
+                    .statusCode(200)
+                    .body("productId", hasItems(alpha, beta, gamma));
+
+          given()
+                    .queryParam("ids", IntStream.rangeClosed(0, ProductMaterialServices.MAX_BATCH_PRODUCTS)
+                              .mapToObj(i -> "id-" + i)
+                              .collect(Collectors.joining(",")))
+                    .when()
+                    .get("/products/all/materials")
+                    .then()
+                    .statusCode(400);
+     }
+
+     // Max producible units
+
+     @Test
+     @Order(19)
+     @DisplayName("GET /products?fields=id,maxUnits → unidades corretas, ordenadas, filtradas, paginadas e atualizadas após estoque e BOM")
+     void maxUnits_ShouldFollowStockAndBom_AcrossSortFilterAndCursor() throws InterruptedException {
+          String rubber = createMaterial("Borracha Disponível");
+          String gasket = createProduct("Junta", 5);
+          String hose = createProduct("Mangueira", 12);
+          String kit = createProduct("Kit Vedação", 40);
+          String empty = createProduct("Sem BOM", 1);
+
+          addLine(gasket, "materials", "rawMaterialId", rubber, 10);
+          addLine(hose, "materials", "rawMaterialId", rubber, 25);
+          addLine(kit, "components", "componentId", gasket, 2);
+
+          // 100 em estoque: junta 100/10, mangueira 100/25, kit 100/20; sem BOM nada
+          List<Map<String, Object>> rows = awaitMaxUnits("sort=-maxUnits",
+                    Map.of(gasket, 10, hose, 4, kit, 5, empty, 0));
+          List<String> order = rows.stream().map(row -> (String) row.get("id")).toList();
+          for (int i = 1; i < rows.size(); i++) {
+               assertTrue((Integer) rows.get(i - 1).get("maxUnits") >= (Integer) rows.get(i).get("maxUnits"),
+                         "página fora de ordem em " + rows.get(i).get("id"));
+          }
+          assertTrue(order.indexOf(gasket) < order.indexOf(kit) && order.indexOf(kit) < order.indexOf(hose));
+          assertEquals(order.size(), order.stream().distinct().count(), "cursor repetiu linhas");
+
+          List<String> atLeastFive = pages("sort=-maxUnits&minUnits=5").stream()
+                    .map(row -> (String) row.get("id"))
+                    .toList();
+          assertTrue(atLeastFive.containsAll(List.of(gasket, kit)));
+          assertFalse(atLeastFive.contains(hose));
+          assertFalse(atLeastFive.contains(empty));
+
+          given()
+                    .when()
+                    .get("/products")
+                    .then()
+                    .statusCode(200)
+                    .body("find { it.id == '" + gasket + "' }", not(hasKey("maxUnits")));
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"delta\": -50 }")
+                    .when()
+                    .post("/raw-materials/{id}/stock/adjust", rubber)
+                    .then()
+                    .statusCode(200);
+          awaitMaxUnits("sort=id", Map.of(gasket, 5, hose, 2, kit, 2, empty, 0));
+
+          addLine(hose, "materials", "rawMaterialId", rubber, 5);
+          awaitMaxUnits("sort=id", Map.of(gasket, 5, hose, 10, kit, 2, empty, 0));
+     }
+
+     @Test
+     @Order(20)
+     @DisplayName("GET /products?fields=id,maxUnits → divisão não exata arredonda para baixo (7 em estoque, 2 por unidade → 3)")
+     void maxUnits_ShouldRoundDown_WhenStockIsNotAMultipleOfRequirement() throws InterruptedException {
+          String cork = createMaterial("Cortiça Fracionada");
+          String ring = createProduct("Anel de Cortiça", 3);
+          addLine(ring, "materials", "rawMaterialId", cork, 2);
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"delta\": -93 }")
+                    .when()
+                    .post("/raw-materials/{id}/stock/adjust", cork)
+                    .then()
+                    .statusCode(200);
+          awaitMaxUnits("sort=id", Map.of(ring, 3));
+
+          List<String> atLeastFour = pages("sort=-maxUnits&minUnits=4").stream()
+                    .map(row -> (String) row.get("id"))
+                    .toList();
+          assertFalse(atLeastFour.contains(ring));
+     }
+
+     private static String createMaterial(String name) {
+          return given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"" + name + "\", \"stockQuantity\": 100 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+     }
+
+     private static String createProduct(String name, int value) {
+          return given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"" + name + "\", \"value\": " + value + " }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+     }
+
+     private static void addLine(String productId, String lines, String idField, String id, int quantity) {
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"" + idField + "\": \"" + id + "\", \"requiredQuantity\": " + quantity + " }")
+                    .when()
+                    .post("/products/{id}/" + lines, productId)
+                    .then()
+                    .statusCode(201);
+     }
+
+     /** Every row of {@code fields=id,maxUnits}, two per page, following X-Next-Cursor to the end. */
+     private static List<Map<String, Object>> pages(String query) {
+          List<Map<String, Object>> rows = new ArrayList<>();
+          String cursor = null;
+          do {
+               var request = given().queryParam("fields", "id,maxUnits").queryParam("limit", 2);
+               if (cursor != null) {
+                    request.queryParam("cursor", cursor);
+               }
+               var response = request
+                         .when()
+                         .get("/products?" + query)
+                         .then()
+                         .statusCode(200)
+                         .extract();
+               rows.addAll(response.jsonPath().getList("$"));
+               cursor = response.header("X-Next-Cursor");
+          } while (cursor != null);
+          return rows;
+     }
+
+     /** Pages through until the expected units show up; the availability view is refreshed in the background. */
+     private static List<Map<String, Object>> awaitMaxUnits(String query, Map<String, Integer> expected)
+               throws InterruptedException {
+          Map<String, Object> seen = Map.of();
+          for (int attempt = 0; attempt < 50; attempt++) {
+               List<Map<String, Object>> rows = pages(query);
+               seen = new LinkedHashMap<>();
+               for (Map<String, Object> row : rows) {
+                    if (expected.containsKey(row.get("id"))) {
+                         seen.put((String) row.get("id"), row.get("maxUnits"));
+                    }
+               }
+               if (seen.equals(expected)) {
+                    return rows;
+               }
+               Thread.sleep(200);
+          }
+          fail("maxUnits não atualizou: esperado " + expected + ", visto " + seen);
+          return List.of();
+     }
 }
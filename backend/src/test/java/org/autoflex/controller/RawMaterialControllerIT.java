@@ -1,16 +1,37 @@
 package org.autoflex.controller;
 
+import io.quarkus.test.common.http.TestHTTPResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import org.junit.jupiter.api.*;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class RawMaterialControllerIT {
 
+     // Deve ser igual a autoflex.stream.debounce em src/test/resources/application.properties
+     private static final Duration DEBOUNCE = Duration.ofSeconds(1);
+
+     @TestHTTPResource("/raw-materials/stream")
+     URI streamUri;
+
      // ID criado no POST, reutilizado nos outros testes
      private static String createdId;
 
@@ -189,4 +210,532 @@ class RawMaterialControllerIT {
                     .body("suggestions", instanceOf(java.util.List.class))
                     .body("grandTotalValue", notNullValue());
      }
+
+     // GET /raw-materials/export
+
+     @Test
+     @Order(12)
+     @DisplayName("GET /raw-materials/export → 200 e uma linha JSON por matéria-prima")
+     void export_ShouldStreamNdjson() {
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Cobre\", \"stockQuantity\": 10 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201);
+
+          String body = given()
+                    .when()
+                    .get("/raw-materials/export")
+                    .then()
+                    .statusCode(200)
+                    .contentType(startsWith("application/x-ndjson"))
+                    .extract()
+                    .asString();
+
+          Assertions.assertTrue(body.lines()
+                    .anyMatch(line -> line.startsWith("{") && line.contains("\"name\":\"Cobre\"")));
+     }
+
+     // POST /raw-materials/production-suggestion/scenarios
+
+     @Test
+     @Order(13)
+     @DisplayName("POST /raw-materials/production-suggestion/scenarios → 200 e um plano por cenário")
+     void evaluateScenarios_ShouldPlanEachScenario() {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Titânio\", \"stockQuantity\": 0 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String productId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Hélice\", \"value\": 700 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 5 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("[ { \"name\": \"atual\" },"
+                              + " { \"name\": \"chegam 10\", \"stock\": [ { \"rawMaterialId\": \"" + materialId + "\", \"delta\": 10 } ] } ]")
+                    .when()
+                    .post("/raw-materials/production-suggestion/scenarios")
+                    .then()
+                    .statusCode(200)
+                    .header("X-Catalog-Version", notNullValue())
+                    .body("name", contains("atual", "chegam 10"))
+                    .body("[0].result.suggestions.productId", not(hasItem(productId)))
+                    .body("[1].result.suggestions.find { it.productId == '" + productId + "' }.quantity", is(2));
+     }
+
+     @Test
+     @Order(14)
+     @DisplayName("POST /raw-materials/production-suggestion/scenarios → 400 quando a matéria-prima não existe")
+     void evaluateScenarios_ShouldReturn400_WhenMaterialUnknown() {
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("[ { \"name\": \"x\", \"stock\": [ { \"rawMaterialId\": \"nao-existe\", \"delta\": 1 } ] } ]")
+                    .when()
+                    .post("/raw-materials/production-suggestion/scenarios")
+                    .then()
+                    .statusCode(400);
+     }
+
+     // GET /raw-materials/{id}/used-by
+
+     @Test
+     @Order(15)
+     @DisplayName("GET /raw-materials/{id}/used-by → 200 e lista os produtos que usam a matéria-prima")
+     void usedBy_ShouldListProductsUsingMaterial() {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Borracha\", \"stockQuantity\": 40 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String productId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Pneu\", \"value\": 150 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 4 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/used-by")
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(1))
+                    .body("[0].productId", equalTo(productId))
+                    .body("[0].productName", equalTo("Pneu"))
+                    .body("[0].requiredQuantity", is(4));
+
+          given()
+                    .queryParam("consistent", true)
+                    .when()
+                    .get("/raw-materials/" + materialId + "/used-by")
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(1))
+                    .body("[0].productId", equalTo(productId))
+                    .body("[0].requiredQuantity", is(4));
+
+          given()
+                    .when()
+                    .get("/raw-materials/id-inexistente/used-by")
+                    .then()
+                    .statusCode(404);
+
+          given()
+                    .queryParam("consistent", true)
+                    .when()
+                    .get("/raw-materials/id-inexistente/used-by")
+                    .then()
+                    .statusCode(404);
+     }
+
+     @Test
+     @Order(16)
+     @DisplayName("GET /raw-materials/{id}/at-risk → 200 e soma a receita dos produtos que dependem da matéria-prima")
+     void atRisk_ShouldSumRevenueOfDependentProducts() {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Couro\", \"stockQuantity\": 30 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String productId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Banco\", \"value\": 200 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 3 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/at-risk")
+                    .then()
+                    .statusCode(200)
+                    .body("availableStock", is(30))
+                    .body("revenueAtRisk", is(2000))
+                    .body("products.size()", is(1))
+                    .body("products[0].producibleUnits", is(10));
+
+          // Reserved units are not available to produce with
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"quantity\": 6 }")
+                    .when()
+                    .post("/raw-materials/" + materialId + "/stock/reserve")
+                    .then()
+                    .statusCode(200);
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/at-risk")
+                    .then()
+                    .statusCode(200)
+                    .body("availableStock", is(24))
+                    .body("revenueAtRisk", is(1600))
+                    .body("products[0].producibleUnits", is(8));
+
+          given()
+                    .when()
+                    .delete("/products/" + productId + "/materials/" + materialId)
+                    .then()
+                    .statusCode(204);
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/used-by")
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(0));
+     }
+
+     // GET /raw-materials/{id}/stock?at=
+
+     @Test
+     @Order(17)
+     @DisplayName("GET /raw-materials/{id}/stock?at= → 200 com o estoque do momento e 400 quando a data é inválida")
+     void findStock_ShouldReturnHistoricalStock() throws InterruptedException {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Níquel\", \"stockQuantity\": 20 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          Thread.sleep(5);
+          String beforeAdjust = Instant.now().toString();
+          Thread.sleep(5);
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"delta\": 5 }")
+                    .when()
+                    .post("/raw-materials/" + materialId + "/stock/adjust")
+                    .then()
+                    .statusCode(200)
+                    .body("stockQuantity", is(25));
+
+          given()
+                    .queryParam("at", beforeAdjust)
+                    .when()
+                    .get("/raw-materials/" + materialId + "/stock")
+                    .then()
+                    .statusCode(200)
+                    .body("stockQuantity", is(20));
+
+          given()
+                    .queryParam("at", "ontem")
+                    .when()
+                    .get("/raw-materials/" + materialId + "/stock")
+                    .then()
+                    .statusCode(400);
+     }
+
+     @Test
+     @Order(18)
+     @DisplayName("GET /raw-materials/production-suggestion?asOf= → 200 com o plano do momento e 400 quando a data é inválida")
+     void suggestProduction_ShouldPlanAsOfPastMoment() throws InterruptedException {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Zinco\", \"stockQuantity\": 12 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String productId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Chapa\", \"value\": 50 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 4 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          Thread.sleep(5);
+          String beforeChanges = Instant.now().toString();
+          Thread.sleep(5);
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 6 }")
+                    .when()
+                    .post("/products/" + productId + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"delta\": 12 }")
+                    .when()
+                    .post("/raw-materials/" + materialId + "/stock/adjust")
+                    .then()
+                    .statusCode(200);
+
+          String quantity = "suggestions.find { it.productId == '" + productId + "' }.quantity";
+
+          given()
+                    .queryParam("asOf", beforeChanges)
+                    .when()
+                    .get("/raw-materials/production-suggestion")
+                    .then()
+                    .statusCode(200)
+                    .body(quantity, is(3));
+
+          given()
+                    .when()
+                    .get("/raw-materials/production-suggestion")
+                    .then()
+                    .statusCode(200)
+                    .body(quantity, is(4));
+
+          given()
+                    .queryParam("asOf", "semana passada")
+                    .when()
+                    .get("/raw-materials/production-suggestion")
+                    .then()
+                    .statusCode(400);
+     }
+
+     // GET /raw-materials/stream
+
+     @Test
+     @Order(19)
+     @DisplayName("GET /raw-materials/stream → agrupa as alterações de estoque da janela em um único evento")
+     void stream_ShouldCoalesceStockChangesIntoOneEvent() throws Exception {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Estanho\", \"stockQuantity\": 10 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          BlockingQueue<String> events = new LinkedBlockingQueue<>();
+          HttpRequest request = HttpRequest.newBuilder(streamUri)
+                    .header("Accept", "text/event-stream")
+                    .build();
+          CompletableFuture<HttpResponse<Stream<String>>> connection = HttpClient.newHttpClient()
+                    .sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+          connection.thenAccept(response -> Thread.ofVirtual().start(() -> response.body()
+                    .filter(line -> line.startsWith("data:"))
+                    .forEach(line -> events.add(line.substring("data:".length())))));
+
+          try {
+               awaitSubscribers(1);
+               // Let a window armed by earlier tests go out before ours starts
+               Thread.sleep(DEBOUNCE.toMillis() * 2);
+               events.clear();
+
+               given()
+                         .contentType(ContentType.JSON)
+                         .body("{ \"delta\": 5 }")
+                         .when()
+                         .post("/raw-materials/" + materialId + "/stock/adjust")
+                         .then()
+                         .statusCode(200);
+
+               given()
+                         .contentType(ContentType.JSON)
+                         .body("{ \"quantity\": 3 }")
+                         .when()
+                         .post("/raw-materials/" + materialId + "/stock/reserve")
+                         .then()
+                         .statusCode(200);
+
+               given()
+                         .contentType(ContentType.JSON)
+                         .body("{ \"delta\": 2 }")
+                         .when()
+                         .post("/raw-materials/" + materialId + "/stock/adjust")
+                         .then()
+                         .statusCode(200);
+
+               String event = events.poll(DEBOUNCE.toMillis() * 10, TimeUnit.MILLISECONDS);
+               assertNotNull(event, "no event within the debounce window");
+               JsonPath update = JsonPath.from(event);
+               assertEquals(1, update.getList("stock").size());
+               assertEquals(materialId, update.getString("stock[0].id"));
+               assertEquals(17, update.getInt("stock[0].stockQuantity"));
+               assertEquals(3, update.getInt("stock[0].reservedQuantity"));
+               assertEquals(14, update.getInt("stock[0].availableQuantity"));
+
+               assertNull(events.poll(DEBOUNCE.toMillis() * 3, TimeUnit.MILLISECONDS),
+                         "the three writes should go out as one event");
+          } finally {
+               connection.thenAccept(response -> response.body().close());
+          }
+     }
+
+     // GET /raw-materials/{id}/used-by e /at-risk com submontagens
+
+     @Test
+     @Order(20)
+     @DisplayName("GET /raw-materials/{id}/at-risk → inclui produtos que usam a matéria-prima por submontagem e muda o ETag")
+     void atRisk_ShouldFollowSubAssemblies() {
+          String materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Fibra\", \"stockQuantity\": 40 }")
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String rimId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Aro\", \"value\": 20 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          String bikeId = given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"name\": \"Bicicleta de Fibra\", \"value\": 300 }")
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"rawMaterialId\": \"" + materialId + "\", \"requiredQuantity\": 2 }")
+                    .when()
+                    .post("/products/" + rimId + "/materials")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"componentId\": \"" + rimId + "\", \"requiredQuantity\": 2 }")
+                    .when()
+                    .post("/products/" + bikeId + "/components")
+                    .then()
+                    .statusCode(201);
+
+          String bike = "find { it.productId == '" + bikeId + "' }";
+
+          given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/used-by")
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(2))
+                    .body(bike + ".requiredQuantity", is(4));
+
+          String etag = given()
+                    .when()
+                    .get("/raw-materials/" + materialId + "/at-risk")
+                    .then()
+                    .statusCode(200)
+                    .body("revenueAtRisk", is(10 * 300 + 20 * 20))
+                    .body("products." + bike + ".producibleUnits", is(10))
+                    .extract()
+                    .header("ETag");
+
+          // Só a submontagem muda; o produto acima dela acompanha
+          given()
+                    .contentType(ContentType.JSON)
+                    .body("{ \"componentId\": \"" + rimId + "\", \"requiredQuantity\": 4 }")
+                    .when()
+                    .post("/products/" + bikeId + "/components")
+                    .then()
+                    .statusCode(201);
+
+          given()
+                    .header("If-None-Match", etag)
+                    .when()
+                    .get("/raw-materials/" + materialId + "/at-risk")
+                    .then()
+                    .statusCode(200)
+                    .header("ETag", not(equalTo(etag)))
+                    .body("revenueAtRisk", is(5 * 300 + 20 * 20))
+                    .body("products." + bike + ".requiredQuantity", is(8))
+                    .body("products." + bike + ".producibleUnits", is(5));
+     }
+
+     private static void awaitSubscribers(int expected) throws InterruptedException {
+          String gauge = "autoflex_stream_subscribers " + expected + ".0";
+          for (int attempt = 0; attempt < 50; attempt++) {
+               if (given().when().get("/q/metrics").asString().contains(gauge)) {
+                    return;
+               }
+               Thread.sleep(100);
+          }
+          fail("stream subscription not registered");
+     }
 }
@@ -0,0 +1,44 @@
+package org.autoflex.controller;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.enterprise.inject.spi.Bean;
+import org.autoflex.metrics.VirtualThreadPinningMonitor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Só roda no build com -Dautoflex.rest.stack=virtual (job virtual-thread-tests do CI). */
+@QuarkusTest
+@EnabledIfSystemProperty(named = "autoflex.rest.stack", matches = "virtual")
+class VirtualThreadStackIT {
+
+     private static final Map<Class<?>, Class<?>> REPLACED = Map.of(
+               ProductController.class, VirtualThreadProductController.class,
+               RawMaterialController.class, VirtualThreadRawMaterialController.class,
+               ProductMaterialController.class, VirtualThreadProductMaterialController.class,
+               ProductComponentController.class, VirtualThreadProductComponentController.class);
+
+     @Test
+     @DisplayName("build virtual → cada rota é servida só pelo controller de virtual threads")
+     void virtualBuild_ShouldReplaceBlockingControllers() {
+          REPLACED.forEach((blocking, virtual) -> {
+               Set<Bean<?>> beans = Arc.container().beanManager().getBeans(blocking);
+               assertEquals(1, beans.size(), "mais de um controller para " + blocking.getSimpleName());
+               assertEquals(virtual, beans.iterator().next().getBeanClass());
+          });
+          assertTrue(Arc.container().instance(VirtualThreadPinningMonitor.class).isAvailable());
+
+          given()
+                    .when()
+                    .get("/products")
+                    .then()
+                    .statusCode(200);
+     }
+}
@@ -0,0 +1,92 @@
+package org.autoflex.planning;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BomExplosionTest {
+
+    /** bike = 2 wheel + frame + 3 steel; wheel = rim + 36 spoke; rim = 2 steel; frame = 5 steel */
+    private static BomExplosion bike() {
+        return BomExplosion.of(
+                Map.of("bike", List.of(new BomLine("bike", "steel", 3)),
+                        "wheel", List.of(new BomLine("wheel", "spoke", 36)),
+                        "rim", List.of(new BomLine("rim", "steel", 2)),
+                        "frame", List.of(new BomLine("frame", "steel", 5))),
+                List.of(new ComponentLine("bike", "wheel", 2),
+                        new ComponentLine("bike", "frame", 1),
+                        new ComponentLine("wheel", "rim", 1)));
+    }
+
+    @Test
+    @DisplayName("explode: should multiply sub-assemblies down every level and merge shared materials")
+    void explode_ShouldFlattenEveryLevel() {
+        BomExplosion explosion = bike();
+
+        assertEquals(Map.of("steel", 3 + 2 * 2 + 5, "spoke", 72), explosion.explode("bike"));
+        assertEquals(Map.of("steel", 2, "spoke", 36), explosion.explode("wheel"));
+        assertEquals(Map.of(), explosion.explode("unknown"));
+    }
+
+    @Test
+    @DisplayName("explodedBom: should return a flat product's own lines unchanged")
+    void explodedBom_ShouldKeepFlatBom() {
+        BomExplosion explosion = bike();
+
+        assertFalse(explosion.hasComponents("frame"));
+        assertEquals(List.of(new BomLine("frame", "steel", 5)), explosion.explodedBom("frame"));
+        assertEquals(Set.of(new BomLine("bike", "steel", 12), new BomLine("bike", "spoke", 72)),
+                Set.copyOf(explosion.explodedBom("bike")));
+    }
+
+    @Test
+    @DisplayName("update: should re-explode the changed product and everything above it only")
+    void update_ShouldInvalidateAncestorsOnly() {
+        BomExplosion explosion = bike();
+        Map<String, Integer> frame = explosion.explode("frame");
+        explosion.explode("bike");
+
+        Set<String> affected = explosion.update("rim", List.of(new BomLine("rim", "steel", 4)), List.of());
+
+        assertEquals(Set.of("rim", "wheel", "bike"), affected);
+        assertSame(frame, explosion.explode("frame"), "unrelated explosions stay memoized");
+        assertEquals(Map.of("steel", 3 + 2 * 4 + 5, "spoke", 72), explosion.explode("bike"));
+    }
+
+    @Test
+    @DisplayName("update: should drop a removed sub-assembly from the reverse index")
+    void update_ShouldUnlinkRemovedComponents() {
+        BomExplosion explosion = bike();
+
+        explosion.update("bike", List.of(new BomLine("bike", "steel", 3)), List.of(new ComponentLine("bike", "frame", 1)));
+
+        assertEquals(Map.of("steel", 8), explosion.explode("bike"));
+        assertEquals(Set.of("wheel"), explosion.update("wheel", List.of(), List.of()));
+    }
+
+    @Test
+    @DisplayName("explode: should report a cycle with the products along it")
+    void explode_ShouldDetectCycles() {
+        BomExplosion explosion = bike();
+        explosion.update("rim", List.of(), List.of(new ComponentLine("rim", "bike", 1)));
+
+        BomCycleException cycle = assertThrows(BomCycleException.class, () -> explosion.explode("wheel"));
+        assertEquals(List.of("wheel", "rim", "bike", "wheel"), cycle.cycle());
+        assertEquals(Map.of("steel", 5), explosion.explode("frame"));
+    }
+
+    @Test
+    @DisplayName("explode: should cap quantities that overflow an int")
+    void explode_ShouldCapOverflow() {
+        BomExplosion explosion = BomExplosion.of(
+                Map.of("leaf", List.of(new BomLine("leaf", "steel", Integer.MAX_VALUE / 2 + 1))),
+                List.of(new ComponentLine("top", "leaf", 4)));
+
+        assertEquals(Map.of("steel", Integer.MAX_VALUE), explosion.explode("top"));
+    }
+}
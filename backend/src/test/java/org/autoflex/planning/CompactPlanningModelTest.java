@@ -0,0 +1,72 @@
+package org.autoflex.planning;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPlanningModelTest {
+
+    @Test
+    @DisplayName("of: should intern materials missing from stock with zero stock")
+    void of_ShouldInternUnknownMaterials_WithZeroStock() {
+        PlanningModel model = new PlanningModel(
+                List.of(new PlanningProduct("p1", "Gear", 10)),
+                Map.of("steel", 10),
+                Map.of("p1", List.of(new BomLine("p1", "steel", 2), new BomLine("p1", "ghost", 1))));
+
+        CompactPlanningModel compact = CompactPlanningModel.of(model);
+
+        assertEquals(2, compact.materialCount());
+        assertEquals(10, compact.stock[compact.bomMaterial[0]]);
+        assertEquals(0, compact.stock[compact.bomMaterial[1]]);
+        assertEquals(Map.of(), new GreedyPlanner().plan(model));
+    }
+
+    @Test
+    @DisplayName("plan: greedy should take products by descending value, ties in catalog order")
+    void plan_ShouldFollowValueOrder_AndKeepTiesInCatalogOrder() {
+        PlanningModel model = new PlanningModel(
+                List.of(new PlanningProduct("p1", "Bolt", 5),
+                        new PlanningProduct("p2", "Nut", 5),
+                        new PlanningProduct("p3", "Gear", 9),
+                        new PlanningProduct("p4", "Orphan", 99)),
+                Map.of("steel", 14),
+                Map.of("p1", List.of(new BomLine("p1", "steel", 3)),
+                        "p2", List.of(new BomLine("p2", "steel", 1)),
+                        "p3", List.of(new BomLine("p3", "steel", 5))));
+
+        CompactPlanningModel compact = CompactPlanningModel.of(model);
+        int[] units = new GreedyPlanner().plan(compact);
+
+        assertArrayEquals(new int[]{1, 1, 2, 0}, units);
+        assertEquals(List.of("p3", "p1"), List.copyOf(compact.toPlan(new int[]{1, 0, 1, 0}).keySet()));
+        assertEquals(14, compact.stock[0], "the model's stock must not be consumed");
+    }
+
+    @Test
+    @DisplayName("withOverrides: should re-rank products and leave the base model untouched")
+    void withOverrides_ShouldReRankProducts_AndKeepBaseModel() {
+        PlanningModel model = new PlanningModel(
+                List.of(new PlanningProduct("p1", "Gear", 10),
+                        new PlanningProduct("p2", "Spring", 5)),
+                Map.of("steel", 6),
+                Map.of("p1", List.of(new BomLine("p1", "steel", 3)),
+                        "p2", List.of(new BomLine("p2", "steel", 2))));
+        CompactPlanningModel base = CompactPlanningModel.of(model);
+
+        long[] stock = base.stockCopy();
+        stock[base.materialIndex("steel")] += 4;
+        int[] values = base.valueCopy();
+        values[base.productIndex("p2")] = 20;
+        CompactPlanningModel scenario = base.withOverrides(stock, values);
+
+        GreedyPlanner greedy = new GreedyPlanner();
+        assertEquals(Map.of("p1", 2), base.toPlan(greedy.plan(base)));
+        assertEquals(Map.of("p2", 5), scenario.toPlan(greedy.plan(scenario)));
+        assertEquals(-1, base.productIndex("unknown"));
+    }
+}
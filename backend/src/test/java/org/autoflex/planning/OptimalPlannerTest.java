@@ -0,0 +1,96 @@
+package org.autoflex.planning;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimalPlannerTest {
+
+    private GreedyPlanner greedyPlanner;
+    private OptimalPlanner optimalPlanner;
+
+    @BeforeEach
+    void setup() {
+        greedyPlanner = new GreedyPlanner();
+        optimalPlanner = new OptimalPlanner();
+        optimalPlanner.greedyPlanner = greedyPlanner;
+        optimalPlanner.timeBudget = Duration.ofSeconds(5);
+    }
+
+    private static long totalValue(PlanningModel model, Map<String, Integer> plan) {
+        return model.products().stream()
+                .mapToLong(p -> (long) p.value() * plan.getOrDefault(p.id(), 0))
+                .sum();
+    }
+
+    private static boolean withinStock(PlanningModel model, Map<String, Integer> plan) {
+        return model.stock().entrySet().stream().allMatch(stock -> {
+            long used = plan.entrySet().stream()
+                    .mapToLong(e -> model.bomOf(e.getKey()).stream()
+                            .filter(line -> line.rawMaterialId().equals(stock.getKey()))
+                            .mapToLong(line -> (long) line.requiredQuantity() * e.getValue())
+                            .sum())
+                    .sum();
+            return used <= stock.getValue();
+        });
+    }
+
+    @Test
+    @DisplayName("plan: should beat greedy when the most valuable product wastes a scarce material")
+    void plan_ShouldBeatGreedy_WhenSharedMaterialIsScarce() {
+        PlanningModel model = new PlanningModel(
+                List.of(new PlanningProduct("p1", "Gear", 10),
+                        new PlanningProduct("p2", "Spring", 9)),
+                Map.of("steel", 10),
+                Map.of("p1", List.of(new BomLine("p1", "steel", 6)),
+                        "p2", List.of(new BomLine("p2", "steel", 5))));
+
+        Map<String, Integer> greedy = greedyPlanner.plan(model);
+        Map<String, Integer> optimal = optimalPlanner.plan(model);
+
+        assertEquals(10, totalValue(model, greedy));
+        assertEquals(18, totalValue(model, optimal));
+        assertEquals(Map.of("p2", 2), optimal);
+    }
+
+    @Test
+    @DisplayName("plan: should respect every material constraint")
+    void plan_ShouldStayWithinStock() {
+        PlanningModel model = new PlanningModel(
+                List.of(new PlanningProduct("p1", "Table", 50),
+                        new PlanningProduct("p2", "Chair", 30),
+                        new PlanningProduct("p3", "Stool", 12),
+                        new PlanningProduct("p4", "Orphan", 99)),
+                Map.of("wood", 37, "screw", 50),
+                Map.of("p1", List.of(new BomLine("p1", "wood", 8), new BomLine("p1", "screw", 12)),
+                        "p2", List.of(new BomLine("p2", "wood", 5), new BomLine("p2", "screw", 6)),
+                        "p3", List.of(new BomLine("p3", "wood", 2), new BomLine("p3", "screw", 3))));
+
+        Map<String, Integer> greedy = greedyPlanner.plan(model);
+        Map<String, Integer> optimal = optimalPlanner.plan(model);
+
+        assertTrue(withinStock(model, optimal));
+        assertFalse(optimal.containsKey("p4"));
+        assertTrue(totalValue(model, optimal) >= totalValue(model, greedy));
+    }
+
+    @Test
+    @DisplayName("plan: should fall back to the greedy plan when the time budget is exhausted")
+    void plan_ShouldReturnWarmStart_WhenBudgetIsZero() {
+        optimalPlanner.timeBudget = Duration.ZERO;
+        PlanningModel model = new PlanningModel(
+                List.of(new PlanningProduct("p1", "Gear", 10),
+                        new PlanningProduct("p2", "Spring", 9)),
+                Map.of("steel", 10),
+                Map.of("p1", List.of(new BomLine("p1", "steel", 6)),
+                        "p2", List.of(new BomLine("p2", "steel", 5))));
+
+        assertEquals(Map.of("p1", 1), optimalPlanner.plan(model));
+    }
+}
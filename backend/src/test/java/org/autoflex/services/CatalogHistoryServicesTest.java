@@ -0,0 +1,85 @@
+package org.autoflex.services;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.autoflex.dto.ProductMaterialRequestDto;
+import org.autoflex.dto.ProductRequestDto;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.PlanningProduct;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CatalogHistoryServicesTest {
+
+    private static final int THREADS = 8;
+
+    @Inject
+    CatalogHistoryServices catalogHistory;
+
+    @Inject
+    ProductServices productServices;
+
+    @Inject
+    ProductMaterialServices productMaterialServices;
+
+    @Inject
+    RawMaterialServices rawMaterialServices;
+
+    /** Runs {@code task} {@code perThread} times on each of {@link #THREADS} threads, all starting together. */
+    private void hammer(int perThread, Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    task.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("concurrent updates of one product and one BOM line should leave a single open version of each")
+    void concurrentUpdates_ShouldKeepOneOpenVersion() throws Exception {
+        String productId = productServices.create(new ProductRequestDto("Versioned", 1)).id();
+        String steelId = rawMaterialServices.create(new RawMaterialRequestDto("Versioned steel", 100)).id();
+        productMaterialServices.addMaterial(productId, new ProductMaterialRequestDto(steelId, 1));
+        AtomicInteger calls = new AtomicInteger();
+
+        hammer(10, () -> {
+            int call = calls.incrementAndGet();
+            productServices.update(productId, new ProductRequestDto("Versioned " + call, call));
+            productMaterialServices.addMaterial(productId, new ProductMaterialRequestDto(steelId, call));
+        });
+
+        Instant now = Instant.now();
+        List<PlanningProduct> products = catalogHistory.productsAt(now).stream()
+                .filter(product -> product.id().equals(productId))
+                .toList();
+        assertEquals(1, products.size(), "more than one version of the product is valid");
+        assertEquals(productServices.findById(productId).value(), products.get(0).value());
+
+        List<BomLine> lines = catalogHistory.bomAt(now).getOrDefault(productId, List.of());
+        assertEquals(1, lines.size(), "more than one version of the BOM line is valid");
+        assertEquals(productMaterialServices.listByProduct(productId).get(0).requiredQuantity(),
+                lines.get(0).requiredQuantity());
+    }
+}
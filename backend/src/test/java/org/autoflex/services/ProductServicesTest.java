@@ -4,6 +4,7 @@ import io.quarkus.panache.mock.PanacheMock;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 import jakarta.ws.rs.NotFoundException;
 import org.autoflex.dto.ProductRequestDto;
 import org.autoflex.dto.ProductResponseDto;
@@ -29,6 +30,9 @@ class ProductServicesTest {
     @InjectMock
     ProductMapper mapper;
 
+    @InjectMock
+    CatalogHistoryServices catalogHistory;
+
     private ProductEntity buildEntity(String id, String name, Integer value) {
         ProductEntity entity = new ProductEntity();
         entity.setId(id);
@@ -73,6 +77,7 @@ class ProductServicesTest {
 
         verify(mapper).toEntity(request);
         verify(mapper).toResponse(entity);
+        verify(catalogHistory).productSaved("abc-123", "Steel Bolt", 50, true);
     }
 
     // findAll
@@ -149,7 +154,7 @@ class ProductServicesTest {
 
         PanacheMock.doReturn(entity)
                 .when(ProductEntity.class);
-        ProductEntity.findById("id-1");
+        ProductEntity.findById("id-1", LockModeType.PESSIMISTIC_WRITE);
 
         ProductRequestDto request = buildRequest("New Name", 99);
         ProductResponseDto response = buildResponse("id-1", "New Name", 99);
@@ -161,6 +166,7 @@ class ProductServicesTest {
         assertEquals("New Name", entity.getName()); // field was mutated
         assertEquals(99, entity.getValue());
         assertEquals("New Name", result.name());
+        verify(catalogHistory).productSaved("id-1", "New Name", 99, false);
     }
 
     @Test
@@ -168,7 +174,7 @@ class ProductServicesTest {
     void update_ShouldThrowNotFound_WhenMissing() {
         PanacheMock.doReturn(null)
                 .when(ProductEntity.class);
-        ProductEntity.findById("missing-id");
+        ProductEntity.findById("missing-id", LockModeType.PESSIMISTIC_WRITE);
 
         assertThrows(NotFoundException.class,
                 () -> productServices.update("missing-id", buildRequest("X", 1)));
@@ -183,7 +189,7 @@ class ProductServicesTest {
 
         PanacheMock.doReturn(entity)
                 .when(ProductEntity.class);
-        ProductEntity.findById("id-1");
+        ProductEntity.findById("id-1", LockModeType.PESSIMISTIC_WRITE);
 
         doNothing().when(entity).delete();
 
@@ -196,7 +202,7 @@ class ProductServicesTest {
     void delete_ShouldThrowNotFound_WhenMissing() {
         PanacheMock.doReturn(null)
                 .when(ProductEntity.class);
-        ProductEntity.findById("missing-id");
+        ProductEntity.findById("missing-id", LockModeType.PESSIMISTIC_WRITE);
 
         assertThrows(NotFoundException.class,
                 () -> productServices.delete("missing-id"));
@@ -8,6 +8,7 @@ import jakarta.ws.rs.NotFoundException;
 import org.autoflex.dto.RawMaterialRequestDto;
 import org.autoflex.dto.RawMaterialResponseDto;
 import org.autoflex.entities.RawMaterialEntity;
+import org.autoflex.entities.StockMovementReason;
 import org.autoflex.mapper.RawMaterialMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -29,6 +30,9 @@ class RawMaterialServicesTest {
      @InjectMock
      RawMaterialMapper mapper;
 
+     @InjectMock
+     StockLedgerServices stockLedger;
+
      // builders
 
      private RawMaterialEntity buildEntity(String id, String name, Integer stock) {
@@ -74,6 +78,7 @@ class RawMaterialServicesTest {
 
           verify(mapper).toEntity(request);
           verify(mapper).toResponse(entity);
+          verify(stockLedger).record("rm-1", 100, 0, StockMovementReason.CREATE);
      }
 
      // findAll
@@ -0,0 +1,159 @@
+package org.autoflex.services;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.NotFoundException;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.dto.StockLevelDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class StockLedgerServicesTest {
+
+    private static final int THREADS = 8;
+
+    @Inject
+    StockLedgerServices stockLedgerServices;
+
+    @Inject
+    StockMovementServices stockMovementServices;
+
+    @Inject
+    RawMaterialServices rawMaterialServices;
+
+    private String createMaterial(int stock) {
+        return rawMaterialServices.create(new RawMaterialRequestDto("Ledger " + stock, stock)).id();
+    }
+
+    /** A moment strictly between the movements before and after it. */
+    private static Instant pause() throws InterruptedException {
+        Thread.sleep(5);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(5);
+        return now;
+    }
+
+    private int compactUpTo(Instant cutoff) {
+        return QuarkusTransaction.requiringNew().call(() -> stockLedgerServices.compactUpTo(cutoff));
+    }
+
+    @Test
+    @DisplayName("stockAt: should replay the movements up to the requested moment")
+    void stockAt_ShouldReplayMovements() throws Exception {
+        String id = createMaterial(100);
+        Instant created = pause();
+        stockMovementServices.reserve(id, 30);
+        stockMovementServices.consume(id, 10);
+        Instant consumed = pause();
+        stockMovementServices.adjust(id, 5);
+
+        assertEquals(new StockLevelDto(id, 100, 0, 100), stockLedgerServices.stockAt(id, created));
+        assertEquals(new StockLevelDto(id, 90, 20, 70), stockLedgerServices.stockAt(id, consumed));
+        assertEquals(stockMovementServices.findStock(id), stockLedgerServices.stockAt(id, Instant.now()));
+    }
+
+    @Test
+    @DisplayName("stockAt: should give the same answers after the movements are folded into a snapshot")
+    void stockAt_ShouldBeUnchanged_ByCompaction() throws Exception {
+        String id = createMaterial(50);
+        stockMovementServices.adjust(id, -20);
+        Instant before = pause();
+        stockMovementServices.adjust(id, 7);
+        Instant after = pause();
+
+        assertTrue(compactUpTo(before) >= 1);
+        assertEquals(30, stockLedgerServices.stockAt(id, before).stockQuantity());
+        assertEquals(37, stockLedgerServices.stockAt(id, after).stockQuantity());
+
+        stockMovementServices.adjust(id, 3);
+        assertTrue(compactUpTo(Instant.now()) >= 1);
+        assertEquals(37, stockLedgerServices.stockAt(id, after).stockQuantity());
+        assertEquals(40, stockLedgerServices.stockAt(id, Instant.now()).stockQuantity());
+    }
+
+    @Test
+    @DisplayName("compactUpTo: a movement whose transaction commits after the cutoff should not be lost")
+    void compactUpTo_ShouldKeepMovement_CommittedAfterCutoff() throws Exception {
+        String id = createMaterial(10);
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch compacted = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> slow = pool.submit(() -> QuarkusTransaction.requiringNew().call(() -> {
+            stockMovementServices.adjust(id, 5);
+            recorded.countDown();
+            compacted.await(60, TimeUnit.SECONDS);
+            return null;
+        }));
+
+        assertTrue(recorded.await(60, TimeUnit.SECONDS));
+        compactUpTo(pause());
+        compacted.countDown();
+        slow.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(15, stockMovementServices.findStock(id).stockQuantity());
+        assertEquals(stockMovementServices.findStock(id), stockLedgerServices.stockAt(id, Instant.now()));
+        assertTrue(compactUpTo(pause()) >= 1);
+        assertEquals(stockMovementServices.findStock(id), stockLedgerServices.stockAt(id, Instant.now()));
+    }
+
+    @Test
+    @DisplayName("stockAt: should throw NotFoundException past the retention period")
+    void stockAt_ShouldThrowNotFound_PastRetention() {
+        String id = createMaterial(10);
+
+        assertThrows(NotFoundException.class,
+                () -> stockLedgerServices.stockAt(id, Instant.now().minus(1000, ChronoUnit.DAYS)));
+    }
+
+    @Test
+    @DisplayName("record: concurrent movements should all reach the ledger")
+    void ledger_ShouldMatchStock_UnderConcurrency() throws Exception {
+        String id = createMaterial(1_000);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    stockMovementServices.reserve(id, 2);
+                    stockMovementServices.consume(id, 1);
+                    stockMovementServices.adjust(id, -1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(stockMovementServices.findStock(id), stockLedgerServices.stockAt(id, Instant.now()));
+    }
+
+    @Test
+    @DisplayName("stockAt: should throw NotFoundException before the raw material existed")
+    void stockAt_ShouldThrowNotFound_BeforeCreation() throws Exception {
+        Instant before = pause();
+        String id = createMaterial(10);
+
+        assertThrows(NotFoundException.class, () -> stockLedgerServices.stockAt(id, before));
+    }
+
+    @Test
+    @DisplayName("parseInstant: should reject a value that is not an ISO-8601 instant")
+    void parseInstant_ShouldRejectGarbage() {
+        assertEquals(Instant.parse("2026-01-05T09:00:00Z"), StockLedgerServices.parseInstant("2026-01-05T09:00:00Z"));
+        assertThrows(BadRequestException.class, () -> StockLedgerServices.parseInstant("last monday"));
+    }
+}
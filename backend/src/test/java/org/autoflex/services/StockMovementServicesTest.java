@@ -0,0 +1,243 @@
+package org.autoflex.services;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import org.autoflex.dto.ProductMaterialRequestDto;
+import org.autoflex.dto.RawMaterialRequestDto;
+import org.autoflex.dto.StockLevelDto;
+import org.autoflex.entities.ProductComponentEntity;
+import org.autoflex.entities.ProductComponentId;
+import org.autoflex.entities.ProductEntity;
+import org.autoflex.entities.ProductMaterialEntity;
+import org.autoflex.entities.ProductMaterialId;
+import org.autoflex.entities.RawMaterialEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class StockMovementServicesTest {
+
+    private static final int THREADS = 8;
+
+    @Inject
+    StockMovementServices stockMovementServices;
+
+    @Inject
+    RawMaterialServices rawMaterialServices;
+
+    @Inject
+    ProductMaterialServices productMaterialServices;
+
+    @Inject
+    StockLedgerServices stockLedgerServices;
+
+    private String createMaterial(int stock) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            RawMaterialEntity entity = new RawMaterialEntity();
+            entity.setName("Stress " + stock);
+            entity.setStockQuantity(stock);
+            entity.persist();
+            return entity.getId();
+        });
+    }
+
+    private String createProduct(String... materialIdAndQuantity) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            ProductEntity product = new ProductEntity();
+            product.setName("Assembly");
+            product.setValue(10);
+            product.persist();
+            for (int i = 0; i < materialIdAndQuantity.length; i += 2) {
+                ProductMaterialEntity link = new ProductMaterialEntity();
+                link.setId(new ProductMaterialId(product.getId(), materialIdAndQuantity[i]));
+                link.setProduct(product);
+                link.setRawMaterial(RawMaterialEntity.findById(materialIdAndQuantity[i]));
+                link.setRequiredQuantity(Integer.parseInt(materialIdAndQuantity[i + 1]));
+                link.persist();
+            }
+            return product.getId();
+        });
+    }
+
+    /** Runs {@code task} {@code perThread} times on each of {@link #THREADS} threads, all starting together. */
+    private void hammer(int perThread, Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    task.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("adjust: concurrent decrements should never lose an update")
+    void adjust_ShouldNotLoseUpdates_UnderConcurrency() throws Exception {
+        String id = createMaterial(10_000);
+
+        hammer(50, () -> stockMovementServices.adjust(id, -1));
+
+        assertEquals(10_000 - THREADS * 50, stockMovementServices.findStock(id).stockQuantity());
+    }
+
+    @Test
+    @DisplayName("adjust: concurrent decrements should stop exactly at zero, never below")
+    void adjust_ShouldNeverOversell_UnderConcurrency() throws Exception {
+        String id = createMaterial(100);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        hammer(25, () -> {
+            try {
+                stockMovementServices.adjust(id, -1);
+                succeeded.incrementAndGet();
+            } catch (ClientErrorException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(100, succeeded.get());
+        assertEquals(THREADS * 25 - 100, rejected.get());
+        assertEquals(0, stockMovementServices.findStock(id).stockQuantity());
+    }
+
+    @Test
+    @DisplayName("reserve/consume/release: concurrent cycles should leave stock and reservations consistent")
+    void reserveConsumeRelease_ShouldStayConsistent_UnderConcurrency() throws Exception {
+        String id = createMaterial(1_000);
+
+        hammer(20, () -> {
+            stockMovementServices.reserve(id, 2);
+            stockMovementServices.consume(id, 1);
+            stockMovementServices.release(id, 1);
+        });
+
+        StockLevelDto level = stockMovementServices.findStock(id);
+        assertEquals(1_000 - THREADS * 20, level.stockQuantity());
+        assertEquals(0, level.reservedQuantity());
+        assertEquals(level.stockQuantity(), level.availableQuantity());
+    }
+
+    @Test
+    @DisplayName("reserve: should throw 409 when not enough stock is available")
+    void reserve_ShouldConflict_WhenInsufficient() {
+        String id = createMaterial(5);
+
+        ClientErrorException e = assertThrows(ClientErrorException.class,
+                () -> stockMovementServices.reserve(id, 6));
+        assertEquals(409, e.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("reserve: should throw NotFoundException when raw material does not exist")
+    void reserve_ShouldThrowNotFound_WhenMissing() {
+        assertThrows(NotFoundException.class,
+                () -> stockMovementServices.reserve("missing-id", 1));
+    }
+
+    @Test
+    @DisplayName("produce: should deduct every BOM line in one go")
+    void produce_ShouldDeductWholeBom() {
+        String steel = createMaterial(100);
+        String bolt = createMaterial(50);
+        String productId = createProduct(steel, "3", bolt, "2");
+
+        var result = stockMovementServices.produce(productId, 10);
+
+        assertEquals(2, result.materialsConsumed());
+        assertEquals(70, stockMovementServices.findStock(steel).stockQuantity());
+        assertEquals(30, stockMovementServices.findStock(bolt).stockQuantity());
+    }
+
+    @Test
+    @DisplayName("produce: should deduct nothing when any material is short")
+    void produce_ShouldBeAtomic_WhenOneMaterialIsShort() {
+        String steel = createMaterial(100);
+        String bolt = createMaterial(5);
+        String productId = createProduct(steel, "3", bolt, "2");
+
+        ClientErrorException e = assertThrows(ClientErrorException.class,
+                () -> stockMovementServices.produce(productId, 10));
+
+        assertEquals(409, e.getResponse().getStatus());
+        assertEquals(100, stockMovementServices.findStock(steel).stockQuantity());
+        assertEquals(5, stockMovementServices.findStock(bolt).stockQuantity());
+    }
+
+    @Test
+    @DisplayName("produce: should reject an order whose requirement overflows an int instead of adding stock")
+    void produce_ShouldRejectOrder_WhenRequirementOverflows() {
+        String steel = createMaterial(100);
+        String productId = createProduct(steel, "3000");
+
+        // 3000 * 1_000_000 wraps to a negative int
+        ClientErrorException e = assertThrows(ClientErrorException.class,
+                () -> stockMovementServices.produce(productId, 1_000_000));
+
+        assertEquals(409, e.getResponse().getStatus());
+        assertEquals(100, stockMovementServices.findStock(steel).stockQuantity());
+    }
+
+    @Test
+    @DisplayName("produce: the ledger should record exactly what was deducted while the BOM is being edited")
+    void produce_ShouldKeepLedgerInStep_WhenBomChangesConcurrently() throws Exception {
+        // Created through the service so the ledger starts from the same stock
+        String steel = rawMaterialServices.create(new RawMaterialRequestDto("Ledger steel", 1_000_000)).id();
+        String productId = createProduct(steel, "1");
+        AtomicInteger calls = new AtomicInteger();
+
+        hammer(20, () -> {
+            int call = calls.incrementAndGet();
+            if (call % 2 == 0) {
+                stockMovementServices.produce(productId, 1);
+            } else {
+                productMaterialServices.addMaterial(productId, new ProductMaterialRequestDto(steel, 1 + call % 3));
+            }
+        });
+
+        assertEquals(stockMovementServices.findStock(steel), stockLedgerServices.stockAt(steel, Instant.now()));
+    }
+
+    @Test
+    @DisplayName("produce: should deduct a sub-assembly linked by another instance, which sent this one no event")
+    void produce_ShouldReadBomTreeFromDatabase_NotFromThisInstancesExplosion() {
+        String steel = createMaterial(1_000);
+        String frame = createProduct(steel, "4");
+        String bike = createProduct(steel, "1");
+        stockMovementServices.produce(bike, 1);
+
+        // Written straight to the table: no CatalogChangedEvent reaches the in-memory explosion
+        QuarkusTransaction.requiringNew().run(() -> new ProductComponentEntity(
+                new ProductComponentId(bike, frame),
+                ProductEntity.findById(bike),
+                ProductEntity.findById(frame),
+                2).persist());
+
+        var result = stockMovementServices.produce(bike, 10);
+
+        // 10 × (1 + 2 × 4)
+        assertEquals(1, result.materialsConsumed());
+        assertEquals(1_000 - 1 - 90, stockMovementServices.findStock(steel).stockQuantity());
+    }
+}
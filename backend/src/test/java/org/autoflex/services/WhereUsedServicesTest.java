@@ -0,0 +1,236 @@
+package org.autoflex.services;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.autoflex.dto.AtRiskRevenueDto;
+import org.autoflex.dto.ProductMaterialResponseDto;
+import org.autoflex.entities.ProductMaterialId;
+import org.autoflex.events.CatalogChangedEvent;
+import org.autoflex.planning.BomLine;
+import org.autoflex.planning.ComponentLine;
+import org.autoflex.planning.MaterialInfo;
+import org.autoflex.planning.PlanningDataLoader;
+import org.autoflex.planning.PlanningProduct;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The where-used index on an in-memory catalog. Every read blocks for a
+ * moment, so concurrent callers overlap the way they do on a database in
+ * the virtual-thread build.
+ */
+class WhereUsedServicesTest {
+
+    private static final int PRODUCTS = 64;
+    private static final String MATERIAL = "rm-1";
+
+    /** The catalog the service reads; every read sleeps briefly, like a query. */
+    static class InMemoryPlanningDataLoader extends PlanningDataLoader {
+
+        final Map<String, PlanningProduct> products = new ConcurrentHashMap<>();
+        final Map<String, MaterialInfo> materials = new ConcurrentHashMap<>();
+        final Map<ProductMaterialId, BomLine> lines = new ConcurrentHashMap<>();
+        final List<ComponentLine> components = new CopyOnWriteArrayList<>();
+
+        final AtomicInteger readers = new AtomicInteger();
+        final AtomicInteger maxReaders = new AtomicInteger();
+
+        private <T> T read(Supplier<T> query) {
+            maxReaders.accumulateAndGet(readers.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+                return query.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                readers.decrementAndGet();
+            }
+        }
+
+        @Override
+        public List<PlanningProduct> loadProducts() {
+            return read(() -> List.copyOf(products.values()));
+        }
+
+        @Override
+        public Optional<PlanningProduct> loadProduct(String productId) {
+            return read(() -> Optional.ofNullable(products.get(productId)));
+        }
+
+        @Override
+        public List<MaterialInfo> loadMaterials() {
+            return read(() -> List.copyOf(materials.values()));
+        }
+
+        @Override
+        public Optional<MaterialInfo> loadMaterial(String rawMaterialId) {
+            return read(() -> Optional.ofNullable(materials.get(rawMaterialId)));
+        }
+
+        @Override
+        public List<BomLine> loadAllBomLines() {
+            return read(() -> List.copyOf(lines.values()));
+        }
+
+        @Override
+        public List<BomLine> loadBom(String productId) {
+            return read(() -> lines.values().stream().filter(line -> line.productId().equals(productId)).toList());
+        }
+
+        @Override
+        public List<ComponentLine> loadAllComponentLines() {
+            return read(() -> List.copyOf(components));
+        }
+
+        @Override
+        public List<ComponentLine> loadComponents(String productId) {
+            return read(() -> components.stream().filter(line -> line.productId().equals(productId)).toList());
+        }
+    }
+
+    private static WhereUsedServices whereUsed(InMemoryPlanningDataLoader loader) {
+        BomExplosionServices bomExplosion = new BomExplosionServices();
+        bomExplosion.planningDataLoader = loader;
+        WhereUsedServices services = new WhereUsedServices();
+        services.planningDataLoader = loader;
+        services.bomExplosionServices = bomExplosion;
+        return services;
+    }
+
+    /** Delivers a committed change to both observers, explosion first as CDI does. */
+    private static void fire(WhereUsedServices services, CatalogChangedEvent event) {
+        services.bomExplosionServices.onCatalogChanged(event);
+        services.onCatalogChanged(event);
+    }
+
+    @Test
+    @DisplayName("concurrent writers and readers: each writer sees its own line, the loader is never entered twice, nothing pins")
+    void concurrentPatchesAndReads_ShouldStayConsistentWithoutPinning() throws Exception {
+        InMemoryPlanningDataLoader loader = new InMemoryPlanningDataLoader();
+        loader.materials.put(MATERIAL, new MaterialInfo(MATERIAL, "Steel", 10_000));
+        WhereUsedServices services = whereUsed(loader);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            String productId = "p-" + i;
+            int required = i + 1;
+            tasks.add(() -> {
+                // Commit, then the AFTER_SUCCESS observers run
+                loader.products.put(productId, new PlanningProduct(productId, "Product " + productId, 10));
+                loader.lines.put(new ProductMaterialId(productId, MATERIAL), new BomLine(productId, MATERIAL, required));
+                fire(services, CatalogChangedEvent.product(productId));
+                fire(services, CatalogChangedEvent.bomLine(productId, MATERIAL));
+
+                List<ProductMaterialResponseDto> users = services.usedBy(MATERIAL);
+                assertTrue(users.stream().anyMatch(line -> line.productId().equals(productId)
+                        && line.requiredQuantity() == required), "writer did not see its own line");
+                return null;
+            });
+            tasks.add(() -> {
+                services.atRiskRevenue(MATERIAL);
+                return null;
+            });
+        }
+
+        List<RecordedEvent> pins;
+        try (Recording recording = new Recording();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            for (Future<Void> result : executor.invokeAll(tasks, 30, TimeUnit.SECONDS)) {
+                result.get();
+            }
+            recording.stop();
+            Path dump = Files.createTempFile("where-used", ".jfr");
+            try {
+                recording.dump(dump);
+                pins = RecordingFile.readAllEvents(dump);
+            } finally {
+                Files.deleteIfExists(dump);
+            }
+        }
+
+        assertEquals(1, loader.maxReaders.get(), "index refreshed by two threads at once");
+
+        List<ProductMaterialResponseDto> users = services.usedBy(MATERIAL);
+        assertEquals(PRODUCTS, users.size());
+        users.forEach(line -> assertEquals(Integer.parseInt(line.productId().substring(2)) + 1,
+                line.requiredQuantity()));
+
+        AtRiskRevenueDto atRisk = services.atRiskRevenue(MATERIAL);
+        assertEquals(PRODUCTS, atRisk.products().size());
+
+        List<String> pinnedHere = pins.stream()
+                .filter(event -> event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                        .map(RecordedFrame::getMethod)
+                        .anyMatch(method -> method.getType().getName().equals(WhereUsedServices.class.getName())))
+                .map(RecordedEvent::toString)
+                .toList();
+        assertEquals(List.of(), pinnedHere, "a virtual thread was pinned inside WhereUsedServices");
+    }
+
+    @Test
+    @DisplayName("usedBy: should skip a BOM line whose product is not indexed yet")
+    void usedBy_ShouldSkipLineOfUnknownProduct() {
+        InMemoryPlanningDataLoader loader = new InMemoryPlanningDataLoader();
+        loader.materials.put(MATERIAL, new MaterialInfo(MATERIAL, "Steel", 100));
+        WhereUsedServices services = whereUsed(loader);
+        services.usedBy(MATERIAL);
+
+        // The line's event is applied, the product's is not (e.g. it came from another path)
+        loader.lines.put(new ProductMaterialId("p-new", MATERIAL), new BomLine("p-new", MATERIAL, 2));
+        fire(services, CatalogChangedEvent.bomLine("p-new", MATERIAL));
+
+        assertEquals(List.of(), services.usedBy(MATERIAL));
+        assertEquals(0L, services.atRiskRevenue(MATERIAL).revenueAtRisk());
+    }
+
+    @Test
+    @DisplayName("usedBy / atRiskRevenue: should follow sub-assemblies and re-index the products above a changed one")
+    void usedBy_ShouldIncludeProductsUsingMaterialThroughSubAssemblies() {
+        InMemoryPlanningDataLoader loader = new InMemoryPlanningDataLoader();
+        loader.materials.put(MATERIAL, new MaterialInfo(MATERIAL, "Steel", 60));
+        loader.products.put("wheel", new PlanningProduct("wheel", "Wheel", 30));
+        loader.products.put("cart", new PlanningProduct("cart", "Cart", 500));
+        loader.lines.put(new ProductMaterialId("wheel", MATERIAL), new BomLine("wheel", MATERIAL, 3));
+        loader.components.add(new ComponentLine("cart", "wheel", 4));
+        WhereUsedServices services = whereUsed(loader);
+
+        List<ProductMaterialResponseDto> users = services.usedBy(MATERIAL);
+        assertEquals(List.of("cart", "wheel"), users.stream().map(ProductMaterialResponseDto::productId).toList());
+        assertEquals(12, users.get(0).requiredQuantity());
+        assertEquals(3, users.get(1).requiredQuantity());
+
+        AtRiskRevenueDto atRisk = services.atRiskRevenue(MATERIAL);
+        // cart: 60 / 12 = 5 units × 500; wheel: 60 / 3 = 20 units × 30
+        assertEquals(5 * 500 + 20 * 30, atRisk.revenueAtRisk());
+
+        // Only the wheel's line changes; the cart above it must follow
+        loader.lines.put(new ProductMaterialId("wheel", MATERIAL), new BomLine("wheel", MATERIAL, 5));
+        fire(services, CatalogChangedEvent.bomLine("wheel", MATERIAL));
+        assertEquals(20, services.usedBy(MATERIAL).get(0).requiredQuantity());
+        assertEquals(3 * 500 + 12 * 30, services.atRiskRevenue(MATERIAL).revenueAtRisk());
+
+        // Dropping the sub-assembly leaves the cart without the material
+        loader.components.clear();
+        fire(services, CatalogChangedEvent.component("cart"));
+        assertEquals(List.of("wheel"), services.usedBy(MATERIAL).stream()
+                .map(ProductMaterialResponseDto::productId).toList());
+    }
+}